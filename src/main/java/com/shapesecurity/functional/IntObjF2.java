@@ -0,0 +1,27 @@
+/*
+ * Copyright 2014 Shape Security, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.shapesecurity.functional;
+
+import javax.annotation.CheckReturnValue;
+import javax.annotation.Nonnull;
+
+// Combines an unboxed int accumulator with an element, as in a fold.
+@CheckReturnValue
+@FunctionalInterface
+public interface IntObjF2<A> {
+    int apply(int acc, @Nonnull A a);
+}
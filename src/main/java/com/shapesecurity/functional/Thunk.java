@@ -23,8 +23,12 @@ import java.util.function.Supplier;
 // Used for lazy evaluation.
 // @FunctionalInterface
 public final class Thunk<A> {
-    @Nonnull
-    private final Supplier<A> supplier;
+    // Dropped once the value is computed, so that whatever it captured can be collected. It cannot
+    // be final, so it lacks the safe publication of a final field; it is volatile instead. The
+    // memory model only promises that get() finds either the value or the supplier if the thunk is
+    // published safely: through a final or volatile field, or under a lock.
+    @Nullable
+    private volatile Supplier<A> supplier;
     // Exception on style: private nullable.
     @Nullable
     private volatile A value = null;
@@ -35,6 +39,7 @@ public final class Thunk<A> {
 
     @Nonnull
     public static <A> Thunk<A> constant(@Nonnull final A value) {
+        // the supplier covers a reader that does not see the value yet
         Thunk<A> t = new Thunk<>(() -> value);
         t.value = value;
         return t;
@@ -53,8 +58,14 @@ public final class Thunk<A> {
             synchronized (this) {
                 value = this.value;
                 if (value == null) {
-                    value = this.supplier.get();
+                    Supplier<A> supplier = this.supplier;
+                    if (supplier == null) {
+                        throw new IllegalStateException("Thunk was published unsafely");
+                    }
+                    value = supplier.get();
+                    // written before the supplier is dropped, so that it is never seen without either
                     this.value = value;
+                    this.supplier = null;
                 }
             }
         }
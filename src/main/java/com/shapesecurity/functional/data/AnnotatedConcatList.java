@@ -0,0 +1,397 @@
+/*
+ * Copyright 2014 Shape Security, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.shapesecurity.functional.data;
+
+import com.shapesecurity.functional.F;
+import com.shapesecurity.functional.Pair;
+
+import javax.annotation.CheckReturnValue;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
+/**
+ * A {@link ConcatList} in which every node caches a summary of its elements under a
+ * {@link Monoid}. <p> Each element is mapped into the monoid by a user supplied function, and every
+ * fork stores the combination of the summaries of its two sides. {@link #summary()} is O(1);
+ * {@link #update}, {@link #append} and {@link #split} only rebuild the nodes on the paths they
+ * touch, recombining O(log n) summaries, so a summary over a large list can be kept current as the
+ * list changes. <p> Like {@link ConcatList}, the tree is kept height-balanced (AVL) by
+ * {@link #append}.
+ *
+ * @param <T> The super type of all the elements.
+ * @param <M> The type of the summary.
+ */
+@CheckReturnValue
+public abstract class AnnotatedConcatList<T, M> implements Iterable<T> {
+    @Nonnull
+    final Annotation<T, M> annotation;
+    public final int length;
+    // the number of nodes on the longest path from this node down to a leaf
+    final int height;
+
+    // package local
+    AnnotatedConcatList(@Nonnull Annotation<T, M> annotation, int length, int height) {
+        this.annotation = annotation;
+        this.length = length;
+        this.height = height;
+    }
+
+    @Nonnull
+    public static <T, M> AnnotatedConcatList<T, M> empty(@Nonnull Monoid<M> monoid, @Nonnull F<T, M> measure) {
+        return new Annotation<>(monoid, measure).empty;
+    }
+
+    @Nonnull
+    public static <T, M> AnnotatedConcatList<T, M> from(@Nonnull Monoid<M> monoid, @Nonnull F<T, M> measure, @Nonnull Iterable<T> elements) {
+        ArrayList<T> list = new ArrayList<>();
+        for (T element : elements) {
+            list.add(element);
+        }
+        return fromListInternal(new Annotation<>(monoid, measure), list, 0, list.size());
+    }
+
+    @Nonnull
+    private static <T, M> AnnotatedConcatList<T, M> fromListInternal(@Nonnull Annotation<T, M> annotation, @Nonnull List<T> elements, int start, int end) {
+        if (start == end) {
+            return annotation.empty;
+        } else if (start + 1 == end) {
+            return new Leaf<>(annotation, elements.get(start));
+        } else {
+            int mid = (start + end) / 2; // start < mid && mid < end
+            return fromListInternal(annotation, elements, start, mid).append(fromListInternal(annotation, elements, mid, end));
+        }
+    }
+
+    /**
+     * @return The combination of the summaries of all the elements, in order, or the identity of
+     * the monoid if the list is empty. Takes constant time.
+     */
+    @Nonnull
+    public abstract M summary();
+
+    public final boolean isEmpty() {
+        return this.length == 0;
+    }
+
+    /**
+     * Concatenates two lists in time logarithmic in their lengths. Both lists must use the same
+     * monoid and measure.
+     */
+    @Nonnull
+    public final AnnotatedConcatList<T, M> append(@Nonnull AnnotatedConcatList<T, M> rhs) {
+        if (rhs.isEmpty()) {
+            return this;
+        }
+        if (this.isEmpty()) {
+            return rhs;
+        }
+        return join(this, rhs);
+    }
+
+    @Nonnull
+    public final AnnotatedConcatList<T, M> append1(@Nonnull T element) {
+        return this.append(new Leaf<>(this.annotation, element));
+    }
+
+    @Nonnull
+    public final Maybe<T> index(int index) {
+        if (index < 0 || index >= this.length) {
+            return Maybe.empty();
+        }
+        AnnotatedConcatList<T, M> list = this;
+        while (list instanceof Fork) {
+            Fork<T, M> fork = (Fork<T, M>) list;
+            if (index < fork.left.length) {
+                list = fork.left;
+            } else {
+                index -= fork.left.length;
+                list = fork.right;
+            }
+        }
+        return Maybe.of(((Leaf<T, M>) list).data);
+    }
+
+    /**
+     * Replaces the element at <code>index</code>, recombining the summaries on its path only.
+     */
+    @Nonnull
+    public final Maybe<AnnotatedConcatList<T, M>> update(int index, @Nonnull T element) {
+        if (index < 0 || index >= this.length) {
+            return Maybe.empty();
+        }
+        return Maybe.of(this.updateInternal(index, element));
+    }
+
+    @Nonnull
+    abstract AnnotatedConcatList<T, M> updateInternal(int index, @Nonnull T element);
+
+    @Nonnull
+    public final Maybe<Pair<AnnotatedConcatList<T, M>, AnnotatedConcatList<T, M>>> split(int index) {
+        if (index < 0 || index > this.length) {
+            return Maybe.empty();
+        }
+        if (index == 0) {
+            return Maybe.of(Pair.of(this.annotation.empty, this));
+        }
+        if (index == this.length) {
+            return Maybe.of(Pair.of(this, this.annotation.empty));
+        }
+        return Maybe.of(this.splitInternal(index));
+    }
+
+    // 0 < index < this.length
+    @Nonnull
+    abstract Pair<AnnotatedConcatList<T, M>, AnnotatedConcatList<T, M>> splitInternal(int index);
+
+    @Override
+    public abstract void forEach(@Nonnull Consumer<? super T> action);
+
+    @Nonnull
+    public final ImmutableList<T> toList() {
+        ImmutableList.Builder<T> builder = ImmutableList.builder();
+        this.forEach(builder::add);
+        return builder.build();
+    }
+
+    /**
+     * @return The elements, without their summaries.
+     */
+    @Nonnull
+    public final ConcatList<T> toConcatList() {
+        ArrayList<T> list = new ArrayList<>(this.length);
+        this.forEach(list::add);
+        return ConcatList.fromList(list);
+    }
+
+    @Nonnull
+    @Override
+    public final Iterator<T> iterator() {
+        return new Iterator<T>() {
+            // the nodes still to visit, the next one on top; a traversal that replaces a fork by
+            // its two children holds at most one pending node per level of the tree
+            @Nonnull
+            private final AnnotatedConcatList<?, ?>[] stack = new AnnotatedConcatList<?, ?>[Math.max(1, AnnotatedConcatList.this.height)];
+            private int size = 0;
+
+            {
+                if (!AnnotatedConcatList.this.isEmpty()) {
+                    this.push(AnnotatedConcatList.this);
+                }
+            }
+
+            private void push(@Nonnull AnnotatedConcatList<?, ?> node) {
+                this.stack[this.size++] = node;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return this.size > 0;
+            }
+
+            @SuppressWarnings("unchecked")
+            @Override
+            public T next() {
+                if (this.size == 0) {
+                    throw new NoSuchElementException();
+                }
+                AnnotatedConcatList<?, ?> node = this.stack[--this.size];
+                this.stack[this.size] = null;
+                while (node instanceof Fork) {
+                    Fork<?, ?> fork = (Fork<?, ?>) node;
+                    this.push(fork.right);
+                    node = fork.left;
+                }
+                return ((Leaf<T, M>) node).data;
+            }
+        };
+    }
+
+    // The shape of the tree, for AvlTrees. Leaves hold one element each and are never merged.
+    private static final AvlTrees.Shape<AnnotatedConcatList<Object, Object>> SHAPE = new AvlTrees.Shape<AnnotatedConcatList<Object, Object>>() {
+        @Override
+        public int height(@Nonnull AnnotatedConcatList<Object, Object> node) {
+            return node.height;
+        }
+
+        @Nonnull
+        @Override
+        public AnnotatedConcatList<Object, Object> left(@Nonnull AnnotatedConcatList<Object, Object> fork) {
+            return ((Fork<Object, Object>) fork).left;
+        }
+
+        @Nonnull
+        @Override
+        public AnnotatedConcatList<Object, Object> right(@Nonnull AnnotatedConcatList<Object, Object> fork) {
+            return ((Fork<Object, Object>) fork).right;
+        }
+
+        @Nonnull
+        @Override
+        public AnnotatedConcatList<Object, Object> fork(@Nonnull AnnotatedConcatList<Object, Object> left, @Nonnull AnnotatedConcatList<Object, Object> right) {
+            return new Fork<>(left, right);
+        }
+
+        @Nullable
+        @Override
+        public AnnotatedConcatList<Object, Object> mergeLeaves(@Nonnull AnnotatedConcatList<Object, Object> left, @Nonnull AnnotatedConcatList<Object, Object> right) {
+            return null;
+        }
+    };
+
+    // Concatenates two non-empty AVL trees, as ConcatList#append does.
+    @SuppressWarnings("unchecked")
+    @Nonnull
+    private static <T, M> AnnotatedConcatList<T, M> join(@Nonnull AnnotatedConcatList<T, M> left, @Nonnull AnnotatedConcatList<T, M> right) {
+        return AvlTrees.join((AvlTrees.Shape<AnnotatedConcatList<T, M>>) (AvlTrees.Shape<?>) SHAPE, left, right);
+    }
+
+    // The monoid and the measure shared by all the nodes of a list.
+    private static final class Annotation<T, M> {
+        @Nonnull
+        final Monoid<M> monoid;
+        @Nonnull
+        final F<T, M> measure;
+        @Nonnull
+        final AnnotatedConcatList<T, M> empty;
+
+        private Annotation(@Nonnull Monoid<M> monoid, @Nonnull F<T, M> measure) {
+            this.monoid = monoid;
+            this.measure = measure;
+            this.empty = new Empty<>(this);
+        }
+    }
+
+    private final static class Empty<T, M> extends AnnotatedConcatList<T, M> {
+        private Empty(@Nonnull Annotation<T, M> annotation) {
+            super(annotation, 0, 0);
+        }
+
+        @Nonnull
+        @Override
+        public M summary() {
+            return this.annotation.monoid.identity();
+        }
+
+        @Nonnull
+        @Override
+        AnnotatedConcatList<T, M> updateInternal(int index, @Nonnull T element) {
+            throw new IllegalStateException();
+        }
+
+        @Nonnull
+        @Override
+        Pair<AnnotatedConcatList<T, M>, AnnotatedConcatList<T, M>> splitInternal(int index) {
+            throw new IllegalStateException();
+        }
+
+        @Override
+        public void forEach(@Nonnull Consumer<? super T> action) {
+        }
+    }
+
+    private final static class Leaf<T, M> extends AnnotatedConcatList<T, M> {
+        @Nonnull
+        final T data;
+        @Nonnull
+        private final M summary;
+
+        private Leaf(@Nonnull Annotation<T, M> annotation, @Nonnull T data) {
+            super(annotation, 1, 1);
+            this.data = data;
+            this.summary = annotation.measure.apply(data);
+        }
+
+        @Nonnull
+        @Override
+        public M summary() {
+            return this.summary;
+        }
+
+        @Nonnull
+        @Override
+        AnnotatedConcatList<T, M> updateInternal(int index, @Nonnull T element) {
+            return new Leaf<>(this.annotation, element);
+        }
+
+        @Nonnull
+        @Override
+        Pair<AnnotatedConcatList<T, M>, AnnotatedConcatList<T, M>> splitInternal(int index) {
+            // unreachable: a leaf has no index strictly inside it
+            throw new IllegalStateException();
+        }
+
+        @Override
+        public void forEach(@Nonnull Consumer<? super T> action) {
+            action.accept(this.data);
+        }
+    }
+
+    private final static class Fork<T, M> extends AnnotatedConcatList<T, M> {
+        @Nonnull
+        final AnnotatedConcatList<T, M> left, right;
+        @Nonnull
+        private final M summary;
+
+        private Fork(@Nonnull AnnotatedConcatList<T, M> left, @Nonnull AnnotatedConcatList<T, M> right) {
+            super(left.annotation, left.length + right.length, Math.max(left.height, right.height) + 1);
+            this.left = left;
+            this.right = right;
+            this.summary = left.annotation.monoid.append(left.summary(), right.summary());
+        }
+
+        @Nonnull
+        @Override
+        public M summary() {
+            return this.summary;
+        }
+
+        @Nonnull
+        @Override
+        AnnotatedConcatList<T, M> updateInternal(int index, @Nonnull T element) {
+            // the shape does not change, so the path can be rebuilt without rebalancing
+            if (index < this.left.length) {
+                return new Fork<>(this.left.updateInternal(index, element), this.right);
+            }
+            return new Fork<>(this.left, this.right.updateInternal(index - this.left.length, element));
+        }
+
+        @Nonnull
+        @Override
+        Pair<AnnotatedConcatList<T, M>, AnnotatedConcatList<T, M>> splitInternal(int index) {
+            if (index == this.left.length) {
+                return Pair.of(this.left, this.right);
+            } else if (index < this.left.length) {
+                Pair<AnnotatedConcatList<T, M>, AnnotatedConcatList<T, M>> split = this.left.splitInternal(index);
+                return Pair.of(split.left, split.right.append(this.right));
+            }
+            Pair<AnnotatedConcatList<T, M>, AnnotatedConcatList<T, M>> split = this.right.splitInternal(index - this.left.length);
+            return Pair.of(this.left.append(split.left), split.right);
+        }
+
+        @Override
+        public void forEach(@Nonnull Consumer<? super T> action) {
+            // the recursion is bounded by the height of the tree
+            this.left.forEach(action);
+            this.right.forEach(action);
+        }
+    }
+}
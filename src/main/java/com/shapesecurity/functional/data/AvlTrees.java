@@ -0,0 +1,104 @@
+/*
+ * Copyright 2014 Shape Security, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.shapesecurity.functional.data;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+// The balancing shared by the height-balanced (AVL) binary trees of ConcatList,
+// AnnotatedConcatList and Rope. Each of them describes its nodes with a Shape.
+final class AvlTrees {
+    private AvlTrees() {
+    }
+
+    interface Shape<N> {
+        // the number of nodes on the longest path from node down to a leaf; 1 for a leaf
+        int height(@Nonnull N node);
+
+        // only called on forks
+        @Nonnull
+        N left(@Nonnull N fork);
+
+        @Nonnull
+        N right(@Nonnull N fork);
+
+        @Nonnull
+        N fork(@Nonnull N left, @Nonnull N right);
+
+        // A single leaf holding the elements of two adjacent leaves, or null if they are to stay
+        // apart.
+        @Nullable
+        N mergeLeaves(@Nonnull N left, @Nonnull N right);
+    }
+
+    // Concatenates two non-empty trees: descends the inner spine of the taller one to a subtree at
+    // most one level taller than the other, forks them there, and rotates on the way back up. Takes
+    // time proportional to the difference in height. A leaf that meets a leaf it can be merged
+    // with on the way down is merged into it instead, so appending single elements fills leaves.
+    @Nonnull
+    static <N> N join(@Nonnull Shape<N> shape, @Nonnull N left, @Nonnull N right) {
+        int leftHeight = shape.height(left);
+        int rightHeight = shape.height(right);
+        if (rightHeight == 1) {
+            if (leftHeight == 1) {
+                N merged = shape.mergeLeaves(left, right);
+                if (merged != null) {
+                    return merged;
+                }
+            } else if (shape.height(shape.right(left)) == 1) {
+                N merged = shape.mergeLeaves(shape.right(left), right);
+                if (merged != null) {
+                    return shape.fork(shape.left(left), merged);
+                }
+            }
+        } else if (leftHeight == 1 && shape.height(shape.left(right)) == 1) {
+            N merged = shape.mergeLeaves(left, shape.left(right));
+            if (merged != null) {
+                return shape.fork(merged, shape.right(right));
+            }
+        }
+        if (leftHeight > rightHeight + 1) {
+            return rebalance(shape, shape.left(left), join(shape, shape.right(left), right));
+        } else if (rightHeight > leftHeight + 1) {
+            return rebalance(shape, join(shape, left, shape.left(right)), shape.right(right));
+        }
+        return shape.fork(left, right);
+    }
+
+    // Forks two trees whose heights differ by at most two, rotating if they differ by two.
+    @Nonnull
+    static <N> N rebalance(@Nonnull Shape<N> shape, @Nonnull N left, @Nonnull N right) {
+        int leftHeight = shape.height(left);
+        int rightHeight = shape.height(right);
+        if (leftHeight > rightHeight + 1) {
+            N ll = shape.left(left);
+            N lr = shape.right(left);
+            if (shape.height(ll) >= shape.height(lr)) {
+                return shape.fork(ll, shape.fork(lr, right));
+            }
+            return shape.fork(shape.fork(ll, shape.left(lr)), shape.fork(shape.right(lr), right));
+        } else if (rightHeight > leftHeight + 1) {
+            N rl = shape.left(right);
+            N rr = shape.right(right);
+            if (shape.height(rr) >= shape.height(rl)) {
+                return shape.fork(shape.fork(left, rl), rr);
+            }
+            return shape.fork(shape.fork(left, shape.left(rl)), shape.fork(shape.right(rl), rr));
+        }
+        return shape.fork(left, right);
+    }
+}
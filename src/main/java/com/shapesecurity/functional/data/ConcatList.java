@@ -19,22 +19,28 @@ package com.shapesecurity.functional.data;
 import com.shapesecurity.functional.Effect;
 import com.shapesecurity.functional.F;
 import com.shapesecurity.functional.F2;
+import com.shapesecurity.functional.IntObjF2;
 import com.shapesecurity.functional.Pair;
+import com.shapesecurity.functional.ToIntF;
 import org.jetbrains.annotations.Debug;
 
 import javax.annotation.CheckReturnValue;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
-import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Deque;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.Objects;
 import java.util.Spliterator;
-import java.util.Stack;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 @CheckReturnValue
 @Debug.Renderer(
@@ -46,12 +52,21 @@ public abstract class ConcatList<T> implements Iterable<T> {
     @SuppressWarnings("StaticInitializerReferencesSubClass")
     private static final Empty<Object> EMPTY = new Empty<>();
     private static BinaryTreeMonoid<Object> MONOID = new BinaryTreeMonoid<>();
+    // the maximum number of elements in a leaf
+    static final int CHUNK_SIZE = 32;
     public final int length;
-    final boolean isBalanced;
-
-    protected ConcatList(int length, boolean isBalanced) {
+    // the number of nodes on the longest path from this node down to a leaf
+    final int height;
+    // 0 until computed; the hash of a fork is derived from the cached hashes of its children
+    private int hashCode = 0;
+    // set when the computed hash code is 0, so that it is not mistaken for one not yet computed
+    private boolean hashIsZero = false;
+    // 31 to the power of length, 0 until computed (it is odd, so never 0 once computed)
+    private int power = 0;
+
+    protected ConcatList(int length, int height) {
         this.length = length;
-        this.isBalanced = isBalanced;
+        this.height = height;
     }
 
     @SuppressWarnings("unchecked")
@@ -82,31 +97,51 @@ public abstract class ConcatList<T> implements Iterable<T> {
         return fromListInternal(list.iterator(), 0, list.size());
     }
 
+    // Packs full leaves from the front; only the last leaf may be partly filled.
     @Nonnull
     private static <T> ConcatList<T> ofInternal(@Nonnull T[] elements, int start, int end) {
-        if (start == end) {
-            return empty();
-        } else if (start + 1 == end) {
-            return single(elements[start]);
+        if (end - start <= CHUNK_SIZE) {
+            return leaf(elements, start, end);
         } else {
-            int mid = (start + end) / 2; // start < mid && mid < end
+            int mid = start + (end - start + CHUNK_SIZE - 1) / CHUNK_SIZE / 2 * CHUNK_SIZE; // start < mid && mid < end
             return ofInternal(elements, start, mid).append(ofInternal(elements, mid, end));
         }
     }
 
     @Nonnull
     private static <T> ConcatList<T> fromListInternal(@Nonnull Iterator<T> elements, int start, int end) {
-        if (start == end) {
-            return empty();
-        } else if (start + 1 == end) {
-            return single(elements.next());
+        if (end - start <= CHUNK_SIZE) {
+            if (start == end) {
+                return empty();
+            }
+            Object[] data = new Object[end - start];
+            for (int i = 0; i < data.length; i++) {
+                data[i] = elements.next();
+            }
+            return new Leaf<>(data);
         } else {
-            int mid = (start + end) / 2; // start < mid && mid < end
+            int mid = start + (end - start + CHUNK_SIZE - 1) / CHUNK_SIZE / 2 * CHUNK_SIZE; // start < mid && mid < end
             return fromListInternal(elements, start, mid).append(fromListInternal(elements, mid, end));
         }
     }
 
-    public abstract ConcatList<T> balanced();
+    // A leaf of elements[start..end), or the empty list if the range is empty.
+    @Nonnull
+    private static <T> ConcatList<T> leaf(@Nonnull Object[] elements, int start, int end) {
+        if (start == end) {
+            return empty();
+        }
+        return new Leaf<>(Arrays.copyOfRange(elements, start, end));
+    }
+
+    /**
+     * @deprecated {@link #append} keeps every list height-balanced, so this returns the list itself.
+     */
+    @Deprecated
+    @Nonnull
+    public final ConcatList<T> balanced() {
+        return this;
+    }
 
     @Nonnull
     public final Maybe<Pair<ConcatList<T>, ConcatList<T>>> split(int index) {
@@ -124,9 +159,67 @@ public abstract class ConcatList<T> implements Iterable<T> {
 
     abstract Pair<ConcatList<T>, ConcatList<T>> splitInternal(int index);
 
+    // The shape of the tree, for AvlTrees. Leaves are merged up to CHUNK_SIZE elements.
+    private static final AvlTrees.Shape<ConcatList<Object>> SHAPE = new AvlTrees.Shape<ConcatList<Object>>() {
+        @Override
+        public int height(@Nonnull ConcatList<Object> node) {
+            return node.height;
+        }
+
+        @Nonnull
+        @Override
+        public ConcatList<Object> left(@Nonnull ConcatList<Object> fork) {
+            return ((Fork<Object>) fork).left;
+        }
+
+        @Nonnull
+        @Override
+        public ConcatList<Object> right(@Nonnull ConcatList<Object> fork) {
+            return ((Fork<Object>) fork).right;
+        }
+
+        @Nonnull
+        @Override
+        public ConcatList<Object> fork(@Nonnull ConcatList<Object> left, @Nonnull ConcatList<Object> right) {
+            return new Fork<>(left, right);
+        }
+
+        @Nullable
+        @Override
+        public ConcatList<Object> mergeLeaves(@Nonnull ConcatList<Object> left, @Nonnull ConcatList<Object> right) {
+            if (left.length + right.length > CHUNK_SIZE) {
+                return null;
+            }
+            Leaf<Object> l = (Leaf<Object>) left;
+            Leaf<Object> r = (Leaf<Object>) right;
+            Object[] data = Arrays.copyOf(l.data, l.length + r.length);
+            System.arraycopy(r.data, 0, data, l.length, r.length);
+            return new Leaf<>(data);
+        }
+    };
+
+    @SuppressWarnings("unchecked")
+    @Nonnull
+    private static <T> AvlTrees.Shape<ConcatList<T>> shape() {
+        return (AvlTrees.Shape<ConcatList<T>>) (AvlTrees.Shape<?>) SHAPE;
+    }
+
+    // Concatenates two non-empty AVL trees in time proportional to the difference in their
+    // heights, so append1 is O(log n); see AvlTrees#join.
+    @Nonnull
+    private static <T> ConcatList<T> join(@Nonnull ConcatList<T> left, @Nonnull ConcatList<T> right) {
+        return AvlTrees.join(shape(), left, right);
+    }
+
+    // Forks two AVL trees whose heights differ by at most two, rotating if they differ by two.
+    @Nonnull
+    private static <T> ConcatList<T> rebalance(@Nonnull ConcatList<T> left, @Nonnull ConcatList<T> right) {
+        return AvlTrees.rebalance(shape(), left, right);
+    }
+
     @Nonnull
     public static <T> ConcatList<T> single(@Nonnull T scope) {
-        return new Leaf<>(scope);
+        return new Leaf<>(new Object[]{ scope });
     }
 
     @SuppressWarnings("unchecked")
@@ -142,17 +235,28 @@ public abstract class ConcatList<T> implements Iterable<T> {
         if (this.isEmpty()) {
             return init;
         }
-        @SuppressWarnings("unchecked")
-        B[] result = (B[]) new Object[]{init};
-        this.forEach(n -> result[0] = f.apply(result[0], n));
-        return result[0];
+        // Manually expanded recursion
+        NodeStack<T> stack = new NodeStack<>(this);
+        while (!stack.isEmpty()) {
+            ConcatList<T> curr = stack.pop();
+            if (curr instanceof Fork) {
+                Fork<T> fork = (Fork<T>) curr;
+                stack.push(fork.right);
+                stack.push(fork.left);
+            } else if (curr instanceof Leaf) {
+                Leaf<T> leaf = (Leaf<T>) curr;
+                for (int i = 0; i < leaf.length; i++) {
+                    init = f.apply(init, leaf.get(i));
+                }
+            }
+        }
+        return init;
     }
 
     @Nonnull
     public final <B> B foldRight(@Nonnull F2<? super T, B, B> f, @Nonnull B init) {
         // Manually expanded recursion
-        Deque<ConcatList<T>> stack = new ArrayDeque<>(this.length);
-        stack.add(this);
+        NodeStack<T> stack = new NodeStack<>(this);
         while (!stack.isEmpty()) {
             ConcatList<T> curr = stack.pop();
             if (curr instanceof Fork) {
@@ -160,7 +264,10 @@ public abstract class ConcatList<T> implements Iterable<T> {
                 stack.push(fork.left);
                 stack.push(fork.right);
             } else if (curr instanceof Leaf) {
-                init = f.apply(((Leaf<T>) curr).data, init);
+                Leaf<T> leaf = (Leaf<T>) curr;
+                for (int i = leaf.length - 1; i >= 0; i--) {
+                    init = f.apply(leaf.get(i), init);
+                }
             }
         }
         return init;
@@ -180,20 +287,87 @@ public abstract class ConcatList<T> implements Iterable<T> {
         if (this.length == 0) {
             return;
         }
-        @SuppressWarnings("unchecked")
-        ConcatList<T>[] stack = new ConcatList[this.length];
-        int i = 0;
-        stack[i++] = this;
-        while (i > 0) {
-            ConcatList<T> curr = stack[--i];
+        NodeStack<T> stack = new NodeStack<>(this);
+        while (!stack.isEmpty()) {
+            ConcatList<T> curr = stack.pop();
+            if (curr instanceof Fork) {
+                Fork<T> fork = (Fork<T>) curr;
+                stack.push(fork.right);
+                stack.push(fork.left);
+            } else if (curr instanceof Leaf) {
+                Leaf<T> leaf = (Leaf<T>) curr;
+                for (int i = 0; i < leaf.length; i++) {
+                    action.accept(leaf.get(i));
+                }
+            }
+        }
+    }
+
+    /**
+     * Passes the elements to <code>f</code> in consecutive chunks of <code>size</code>, in order.
+     * The same array is reused for every full chunk; a shorter last chunk gets an array of its own.
+     */
+    public final void forEachChunk(int size, @Nonnull Consumer<Object[]> f) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("ConcatList::forEachChunk requires a positive size.");
+        }
+        if (this.length == 0) {
+            return;
+        }
+        Object[] chunk = new Object[Math.min(size, this.length)];
+        int filled = 0;
+        // Manually expanded recursion
+        NodeStack<T> stack = new NodeStack<>(this);
+        while (!stack.isEmpty()) {
+            ConcatList<T> curr = stack.pop();
             if (curr instanceof Fork) {
                 Fork<T> fork = (Fork<T>) curr;
-                stack[i++] = fork.right;
-                stack[i++] = fork.left;
+                stack.push(fork.right);
+                stack.push(fork.left);
             } else if (curr instanceof Leaf) {
-                action.accept(((Leaf<T>) curr).data);
+                Object[] data = ((Leaf<T>) curr).data;
+                for (int i = 0; i < data.length; ) {
+                    int count = Math.min(data.length - i, chunk.length - filled);
+                    System.arraycopy(data, i, chunk, filled, count);
+                    i += count;
+                    filled += count;
+                    if (filled == chunk.length) {
+                        f.accept(chunk);
+                        filled = 0;
+                    }
+                }
+            }
+        }
+        if (filled > 0) {
+            f.accept(Arrays.copyOf(chunk, filled));
+        }
+    }
+
+    @Nonnull
+    public final ConcatList<ConcatList<T>> grouped(int size) {
+        return this.sliding(size, size);
+    }
+
+    /**
+     * Windows of <code>size</code> consecutive elements starting every <code>step</code> elements,
+     * as in {@link ImmutableList#sliding}.
+     */
+    @SuppressWarnings("unchecked")
+    @Nonnull
+    public final ConcatList<ConcatList<T>> sliding(int size, int step) {
+        if (size <= 0 || step <= 0) {
+            throw new IllegalArgumentException("ConcatList::sliding requires a positive size and step.");
+        }
+        T[] array = (T[]) this.copyToArray();
+        ArrayList<ConcatList<T>> windows = new ArrayList<>();
+        for (int start = 0; start < array.length; start += step) {
+            int end = Math.min(start + size, array.length);
+            windows.add(ofInternal(array, start, end));
+            if (end == array.length) {
+                break;
             }
         }
+        return fromList(windows);
     }
 
     @Nonnull
@@ -205,14 +379,22 @@ public abstract class ConcatList<T> implements Iterable<T> {
     }
 
     public final boolean exists(@Nonnull F<T, Boolean> f) {
-        return this.find(f).isJust();
+        return this.existsByPredicate(f::apply);
+    }
+
+    public final boolean existsByPredicate(@Nonnull Predicate<T> f) {
+        return this.findByPredicate(f).isJust();
     }
 
     @Nonnull
     public final Maybe<T> find(@Nonnull F<T, Boolean> f) {
+        return this.findByPredicate(f::apply);
+    }
+
+    @Nonnull
+    public final Maybe<T> findByPredicate(@Nonnull Predicate<T> f) {
         // Manually expanded recursion
-        Deque<ConcatList<T>> stack = new ArrayDeque<>(this.length);
-        stack.add(this);
+        NodeStack<T> stack = new NodeStack<>(this);
         while (!stack.isEmpty()) {
             ConcatList<T> curr = stack.pop();
             if (curr instanceof Fork) {
@@ -220,22 +402,313 @@ public abstract class ConcatList<T> implements Iterable<T> {
                 stack.push(fork.right);
                 stack.push(fork.left);
             } else if (curr instanceof Leaf) {
-                if (f.apply(((Leaf<T>) curr).data)) {
-                    return Maybe.of(((Leaf<T>) curr).data);
+                Leaf<T> leaf = (Leaf<T>) curr;
+                for (int i = 0; i < leaf.length; i++) {
+                    if (f.test(leaf.get(i))) {
+                        return Maybe.of(leaf.get(i));
+                    }
                 }
             }
         }
         return Maybe.empty();
     }
 
+    /**
+     * Applies <code>f</code> to every element, keeping the shape of the tree.
+     */
+    @Nonnull
+    public final <B> ConcatList<B> map(@Nonnull F<T, B> f) {
+        return mapInternal(this, f);
+    }
+
+    /**
+     * Keeps the elements that satisfy <code>f</code>. Subtrees without a removed element are
+     * shared with this list; the rest are rejoined with {@link #append}, so the result is balanced.
+     */
+    @Nonnull
+    public final ConcatList<T> filter(@Nonnull F<T, Boolean> f) {
+        return filterInternal(this, f);
+    }
+
+    /**
+     * Replaces every element by the list <code>f</code> computes for it, joined with
+     * {@link #append}, so the result is balanced.
+     */
+    @Nonnull
+    public final <B> ConcatList<B> flatMap(@Nonnull F<T, ConcatList<B>> f) {
+        return flatMapInternal(this, f);
+    }
+
+    /**
+     * Like {@link #map}, but maps the two sides of each fork in parallel in the common fork-join
+     * pool.
+     *
+     * @param f The function to apply. It may be called from several threads at once.
+     */
+    @Nonnull
+    public final <B> ConcatList<B> parallelMap(@Nonnull F<T, B> f) {
+        return this.parallelMap(f, ForkJoinPool.commonPool(), ImmutableList.defaultGrainSize(this.length, ForkJoinPool.commonPool()));
+    }
+
+    /**
+     * Like {@link #parallelMap(F)}, in the given pool.
+     *
+     * @param grainSize The number of elements below which a subtree is processed sequentially.
+     */
+    @Nonnull
+    public final <B> ConcatList<B> parallelMap(@Nonnull F<T, B> f, @Nonnull ForkJoinPool pool, int grainSize) {
+        return pool.invoke(new TreeTask<T, B>(this, grainSize, list -> mapInternal(list, f)));
+    }
+
+    /**
+     * Like {@link #filter}, but filters the two sides of each fork in parallel in the common
+     * fork-join pool.
+     *
+     * @param f The predicate. It may be called from several threads at once.
+     */
+    @Nonnull
+    public final ConcatList<T> parallelFilter(@Nonnull F<T, Boolean> f) {
+        return this.parallelFilter(f, ForkJoinPool.commonPool(), ImmutableList.defaultGrainSize(this.length, ForkJoinPool.commonPool()));
+    }
+
+    /**
+     * Like {@link #parallelFilter(F)}, in the given pool.
+     *
+     * @param grainSize The number of elements below which a subtree is processed sequentially.
+     */
+    @Nonnull
+    public final ConcatList<T> parallelFilter(@Nonnull F<T, Boolean> f, @Nonnull ForkJoinPool pool, int grainSize) {
+        return pool.invoke(new TreeTask<T, T>(this, grainSize, list -> filterInternal(list, f)));
+    }
+
+    /**
+     * Like {@link #flatMap}, but expands the two sides of each fork in parallel in the common
+     * fork-join pool.
+     *
+     * @param f The function to expand the elements. It may be called from several threads at once.
+     */
+    @Nonnull
+    public final <B> ConcatList<B> parallelFlatMap(@Nonnull F<T, ConcatList<B>> f) {
+        return this.parallelFlatMap(f, ForkJoinPool.commonPool(), ImmutableList.defaultGrainSize(this.length, ForkJoinPool.commonPool()));
+    }
+
+    /**
+     * Like {@link #parallelFlatMap(F)}, in the given pool.
+     *
+     * @param grainSize The number of elements below which a subtree is processed sequentially.
+     */
+    @Nonnull
+    public final <B> ConcatList<B> parallelFlatMap(@Nonnull F<T, ConcatList<B>> f, @Nonnull ForkJoinPool pool, int grainSize) {
+        return pool.invoke(new TreeTask<T, B>(this, grainSize, list -> flatMapInternal(list, f)));
+    }
+
+    // The recursion in these is bounded by the height of the tree.
+
+    @Nonnull
+    private static <T, B> ConcatList<B> mapInternal(@Nonnull ConcatList<T> list, @Nonnull F<T, B> f) {
+        if (list instanceof Fork) {
+            Fork<T> fork = (Fork<T>) list;
+            ConcatList<B> left = mapInternal(fork.left, f);
+            return new Fork<>(left, mapInternal(fork.right, f));
+        } else if (list instanceof Leaf) {
+            Leaf<T> leaf = (Leaf<T>) list;
+            Object[] data = new Object[leaf.length];
+            for (int i = 0; i < data.length; i++) {
+                data[i] = f.apply(leaf.get(i));
+            }
+            return new Leaf<>(data);
+        }
+        return empty();
+    }
+
+    @Nonnull
+    private static <T> ConcatList<T> filterInternal(@Nonnull ConcatList<T> list, @Nonnull F<T, Boolean> f) {
+        if (list instanceof Fork) {
+            Fork<T> fork = (Fork<T>) list;
+            ConcatList<T> left = filterInternal(fork.left, f);
+            ConcatList<T> right = filterInternal(fork.right, f);
+            return left == fork.left && right == fork.right ? list : left.append(right);
+        } else if (list instanceof Leaf) {
+            Leaf<T> leaf = (Leaf<T>) list;
+            Object[] data = new Object[leaf.length];
+            int count = 0;
+            for (int i = 0; i < leaf.length; i++) {
+                if (f.apply(leaf.get(i))) {
+                    data[count++] = leaf.data[i];
+                }
+            }
+            return count == leaf.length ? list : leaf(data, 0, count);
+        }
+        return list;
+    }
+
+    @Nonnull
+    private static <T, B> ConcatList<B> flatMapInternal(@Nonnull ConcatList<T> list, @Nonnull F<T, ConcatList<B>> f) {
+        if (list instanceof Fork) {
+            Fork<T> fork = (Fork<T>) list;
+            ConcatList<B> left = flatMapInternal(fork.left, f);
+            return left.append(flatMapInternal(fork.right, f));
+        } else if (list instanceof Leaf) {
+            Leaf<T> leaf = (Leaf<T>) list;
+            ConcatList<B> result = empty();
+            for (int i = 0; i < leaf.length; i++) {
+                result = result.append(f.apply(leaf.get(i)));
+            }
+            return result;
+        }
+        return empty();
+    }
+
+    /**
+     * Maps the elements into a monoid and combines the results in order; the identity of the monoid
+     * if the list is empty.
+     */
+    @Nonnull
+    public final <M> M foldMap(@Nonnull Monoid<M> monoid, @Nonnull F<? super T, M> f) {
+        M result = monoid.identity();
+        if (this.length == 0) {
+            return result;
+        }
+        // Manually expanded recursion
+        NodeStack<T> stack = new NodeStack<>(this);
+        while (!stack.isEmpty()) {
+            ConcatList<T> curr = stack.pop();
+            if (curr instanceof Fork) {
+                Fork<T> fork = (Fork<T>) curr;
+                stack.push(fork.right);
+                stack.push(fork.left);
+            } else if (curr instanceof Leaf) {
+                Leaf<T> leaf = (Leaf<T>) curr;
+                for (int i = 0; i < leaf.length; i++) {
+                    result = monoid.append(result, f.apply(leaf.get(i)));
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Like {@link #foldMap}, but reduces the two sides of each fork in parallel in the common
+     * fork-join pool. Relies on the monoid being associative; the result is the same as with
+     * {@link #foldMap}.
+     *
+     * @param monoid The monoid to combine the results in. It may be called from several threads at
+     *               once.
+     * @param f      The function to apply. It may be called from several threads at once.
+     */
+    @Nonnull
+    public final <M> M parallelFoldMap(@Nonnull Monoid<M> monoid, @Nonnull F<? super T, M> f) {
+        return this.parallelFoldMap(monoid, f, ForkJoinPool.commonPool(), ImmutableList.defaultGrainSize(this.length, ForkJoinPool.commonPool()));
+    }
+
+    /**
+     * Like {@link #parallelFoldMap(Monoid, F)}, in the given pool.
+     *
+     * @param grainSize The number of elements below which a subtree is reduced sequentially.
+     */
+    @Nonnull
+    public final <M> M parallelFoldMap(@Nonnull Monoid<M> monoid, @Nonnull F<? super T, M> f, @Nonnull ForkJoinPool pool, int grainSize) {
+        return pool.invoke(new FoldMapTask<>(this, monoid, f, grainSize));
+    }
+
+    public final int countByPredicate(@Nonnull Predicate<T> f) {
+        return this.foldLeftInt((acc, x) -> f.test(x) ? acc + 1 : acc, 0);
+    }
+
+    public final int foldLeftInt(@Nonnull IntObjF2<? super T> f, int init) {
+        if (this.isEmpty()) {
+            return init;
+        }
+        // Manually expanded recursion
+        NodeStack<T> stack = new NodeStack<>(this);
+        while (!stack.isEmpty()) {
+            ConcatList<T> curr = stack.pop();
+            if (curr instanceof Fork) {
+                Fork<T> fork = (Fork<T>) curr;
+                stack.push(fork.right);
+                stack.push(fork.left);
+            } else if (curr instanceof Leaf) {
+                Leaf<T> leaf = (Leaf<T>) curr;
+                for (int i = 0; i < leaf.length; i++) {
+                    init = f.apply(init, leaf.get(i));
+                }
+            }
+        }
+        return init;
+    }
+
+    public final int sumInt(@Nonnull ToIntF<? super T> f) {
+        return this.foldLeftInt((acc, x) -> acc + f.apply(x), 0);
+    }
+
+    /**
+     * Stable sort. Copies the elements into a single array, sorts it in place and builds a
+     * balanced list from it; a list that is already sorted is returned as is.
+     */
+    @Nonnull
+    public final ConcatList<T> sort(@Nonnull Comparator<? super T> comparator) {
+        if (this.length < 2) {
+            return this;
+        }
+        @SuppressWarnings("unchecked")
+        T[] array = (T[]) this.copyToArray();
+        int i = 1;
+        while (i < array.length && comparator.compare(array[i - 1], array[i]) <= 0) {
+            i++;
+        }
+        if (i == array.length) {
+            return this;
+        }
+        Arrays.sort(array, comparator);
+        return ofInternal(array, 0, array.length);
+    }
+
+    /**
+     * As {@link ImmutableList#groupBy(F)}.
+     */
+    @Nonnull
+    public final <K> MultiHashTable<K, T> groupBy(@Nonnull F<T, K> f) {
+        return Grouping.groupBy(this, f);
+    }
+
+    @Nonnull
+    public final <K> MultiHashTable<K, T> groupBy(@Nonnull Hasher<K> hasher, @Nonnull F<T, K> f) {
+        return Grouping.groupBy(this, hasher, f);
+    }
+
+    /**
+     * As {@link ImmutableList#countBy(F)}.
+     */
+    @Nonnull
+    public final <K> HashTable<K, Integer> countBy(@Nonnull F<T, K> f) {
+        return Grouping.countBy(this, f);
+    }
+
+    @Nonnull
+    public final <K> HashTable<K, Integer> countBy(@Nonnull Hasher<K> hasher, @Nonnull F<T, K> f) {
+        return Grouping.countBy(this, hasher, f);
+    }
+
+    /**
+     * As {@link ImmutableList#indexBy(F)}.
+     */
+    @Nonnull
+    public final <K> HashTable<K, T> indexBy(@Nonnull F<T, K> f) {
+        return Grouping.indexBy(this, f);
+    }
+
+    @Nonnull
+    public final <K> HashTable<K, T> indexBy(@Nonnull Hasher<K> hasher, @Nonnull F<T, K> f) {
+        return Grouping.indexBy(this, hasher, f);
+    }
+
     @Nonnull
     public final ConcatList<T> reverse() {
         if (this instanceof Empty) {
             return this;
         }
         ArrayList<T> list = new ArrayList<>(this.length);
-        Deque<ConcatList<T>> stack = new ArrayDeque<>(this.length);
-        stack.add(this);
+        NodeStack<T> stack = new NodeStack<>(this);
         while (!stack.isEmpty()) {
             ConcatList<T> curr = stack.pop();
             if (curr instanceof Fork) {
@@ -244,16 +717,148 @@ public abstract class ConcatList<T> implements Iterable<T> {
                 stack.push(fork.left);
                 stack.push(fork.right);
             } else if (curr instanceof Leaf) {
-                list.add(((Leaf<T>) curr).data);
+                Leaf<T> leaf = (Leaf<T>) curr;
+                for (int i = leaf.length - 1; i >= 0; i--) {
+                    list.add(leaf.get(i));
+                }
+            }
+        }
+        return ConcatList.fromList(list);
+    }
+
+    /**
+     * Two lists are equal if they have equal elements in the same order, however their trees are
+     * shaped. The trees are walked leaf against leaf without flattening, and a sub-tree the two
+     * lists share is skipped without looking at its elements.
+     */
+    @Override
+    public final boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ConcatList)) {
+            return false;
+        }
+        ConcatList<?> other = (ConcatList<?>) o;
+        if (this.length != other.length) {
+            return false;
+        }
+        if (this.hashCode != 0 && other.hashCode != 0 && this.hashCode != other.hashCode) {
+            return false;
+        }
+        return this.length == 0 || elementsEqual(this, other);
+    }
+
+    /**
+     * @return The same hash code as {@link java.util.List#hashCode()} of the same elements. It is
+     * cached in every node, and a fork combines the hash codes of its children in constant time,
+     * so the hash code of a list built by appending to a hashed list is cheap.
+     */
+    @Override
+    public final int hashCode() {
+        // Manually expanded thunk
+        int hashCodeCached = this.hashCode;
+        if (hashCodeCached == 0 && !this.hashIsZero) {
+            // This is safe because calcHashCode has no side-effects.
+            int hc = this.calcHashCode();
+            if (hc == 0) {
+                this.hashIsZero = true;
+            } else {
+                this.hashCode = hc;
+            }
+            return hc;
+        }
+        return hashCodeCached;
+    }
+
+    // The hash code of a list is 31^length + sum(31^(length - 1 - i) * hash(element i)), so the
+    // hash code of left ++ right is hash(left) * 31^|right| + hash(right) - 31^|right|.
+    abstract int calcHashCode();
+
+    final int power() {
+        int power = this.power;
+        if (power == 0) {
+            power = this.calcPower();
+            this.power = power;
+        }
+        return power;
+    }
+
+    abstract int calcPower();
+
+    // 0 < a.length == b.length
+    private static <A, B> boolean elementsEqual(@Nonnull ConcatList<A> a, @Nonnull ConcatList<B> b) {
+        // the nodes still to compare after the current leaves, the next one on top
+        NodeStack<A> stackA = new NodeStack<>(a);
+        NodeStack<B> stackB = new NodeStack<>(b);
+        @Nullable Leaf<A> leafA = null;
+        @Nullable Leaf<B> leafB = null;
+        int indexA = 0, indexB = 0;
+        while (true) {
+            if (leafA == null) {
+                if (stackA.isEmpty()) {
+                    // both lists have the same length
+                    return true;
+                }
+                ConcatList<A> nodeA = stackA.peek();
+                if (leafB == null) {
+                    // both traversals are at a node boundary
+                    ConcatList<B> nodeB = stackB.peek();
+                    if (nodeA == (Object) nodeB) {
+                        stackA.pop();
+                        stackB.pop();
+                        continue;
+                    }
+                    // descend the larger node first, so that a node of the other list can meet it
+                    if (nodeB instanceof Fork && (nodeB.length > nodeA.length || !(nodeA instanceof Fork))) {
+                        stackB.pop();
+                        stackB.push(((Fork<B>) nodeB).right);
+                        stackB.push(((Fork<B>) nodeB).left);
+                        continue;
+                    }
+                }
+                stackA.pop();
+                if (nodeA instanceof Fork) {
+                    stackA.push(((Fork<A>) nodeA).right);
+                    stackA.push(((Fork<A>) nodeA).left);
+                } else {
+                    leafA = (Leaf<A>) nodeA;
+                    indexA = 0;
+                }
+                continue;
+            }
+            if (leafB == null) {
+                ConcatList<B> nodeB = stackB.pop();
+                if (nodeB instanceof Fork) {
+                    stackB.push(((Fork<B>) nodeB).right);
+                    stackB.push(((Fork<B>) nodeB).left);
+                } else {
+                    leafB = (Leaf<B>) nodeB;
+                    indexB = 0;
+                }
+                continue;
+            }
+            int n = Math.min(leafA.length - indexA, leafB.length - indexB);
+            for (int i = 0; i < n; i++) {
+                if (!Objects.equals(leafA.data[indexA + i], leafB.data[indexB + i])) {
+                    return false;
+                }
+            }
+            indexA += n;
+            indexB += n;
+            if (indexA == leafA.length) {
+                leafA = null;
+            }
+            if (indexB == leafB.length) {
+                leafB = null;
             }
         }
-        return ConcatList.fromList(list);
     }
 
     @Nonnull
     public final Maybe<T> index(int index) {
         ConcatList<T> list = this;
-        if (index >= this.length) {
+        if (index < 0 || index >= this.length) {
             return Maybe.empty();
         }
         // list is not an Empty
@@ -266,7 +871,7 @@ public abstract class ConcatList<T> implements Iterable<T> {
                 list = ((Fork<T>) list).right;
             }
         }
-        return Maybe.of(((Leaf<T>) list).data);
+        return Maybe.of(((Leaf<T>) list).get(index));
     }
 
     @Nullable
@@ -277,20 +882,171 @@ public abstract class ConcatList<T> implements Iterable<T> {
         return Maybe.fromNullable(this.updateInternal(index, element));
     }
 
+    /**
+     * Inserts an element before the element at <code>index</code>, or at the end if
+     * <code>index</code> is the length of the list. Rebalances along one path: O(log n).
+     */
+    @Nonnull
+    public final Maybe<ConcatList<T>> insertAt(int index, @Nonnull T element) {
+        if (index < 0 || index > this.length) {
+            return Maybe.empty();
+        }
+        if (this.length == 0) {
+            return Maybe.of(single(element));
+        }
+        return Maybe.of(insertInternal(this, index, element));
+    }
+
+    /**
+     * Removes the element at <code>index</code>. Rebalances along one path: O(log n).
+     */
+    @Nonnull
+    public final Maybe<ConcatList<T>> removeAt(int index) {
+        if (index < 0 || index >= this.length) {
+            return Maybe.empty();
+        }
+        return Maybe.of(removeInternal(this, index));
+    }
+
+    /**
+     * @return The elements from index <code>from</code> (inclusive) to <code>to</code>
+     * (exclusive), sharing the subtrees that lie entirely within the range. O(log n).
+     */
+    @Nonnull
+    public final Maybe<ConcatList<T>> slice(int from, int to) {
+        if (from < 0 || to > this.length || from > to) {
+            return Maybe.empty();
+        }
+        return Maybe.of(drop(take(this, to), from));
+    }
+
+    /**
+     * @return The list without the elements from index <code>from</code> (inclusive) to
+     * <code>to</code> (exclusive). O(log n).
+     */
+    @Nonnull
+    public final Maybe<ConcatList<T>> removeRange(int from, int to) {
+        if (from < 0 || to > this.length || from > to) {
+            return Maybe.empty();
+        }
+        return Maybe.of(take(this, from).append(drop(this, to)));
+    }
+
+    // The recursion in these is bounded by the height of the tree.
+
+    // 0 <= index <= list.length, list is not empty
+    @Nonnull
+    private static <T> ConcatList<T> insertInternal(@Nonnull ConcatList<T> list, int index, @Nonnull T element) {
+        if (list instanceof Fork) {
+            Fork<T> fork = (Fork<T>) list;
+            if (index <= fork.left.length) {
+                return rebalance(insertInternal(fork.left, index, element), fork.right);
+            }
+            return rebalance(fork.left, insertInternal(fork.right, index - fork.left.length, element));
+        }
+        Leaf<T> leaf = (Leaf<T>) list;
+        Object[] data = new Object[leaf.length + 1];
+        System.arraycopy(leaf.data, 0, data, 0, index);
+        data[index] = element;
+        System.arraycopy(leaf.data, index, data, index + 1, leaf.length - index);
+        if (data.length <= CHUNK_SIZE) {
+            return new Leaf<>(data);
+        }
+        // a full leaf becomes a fork of two half-full ones
+        return new Fork<>(leaf(data, 0, data.length / 2), leaf(data, data.length / 2, data.length));
+    }
+
+    // 0 <= index < list.length
+    @Nonnull
+    private static <T> ConcatList<T> removeInternal(@Nonnull ConcatList<T> list, int index) {
+        if (list instanceof Fork) {
+            Fork<T> fork = (Fork<T>) list;
+            if (index < fork.left.length) {
+                ConcatList<T> left = removeInternal(fork.left, index);
+                return left.length == 0 ? fork.right : rebalance(left, fork.right);
+            }
+            ConcatList<T> right = removeInternal(fork.right, index - fork.left.length);
+            return right.length == 0 ? fork.left : rebalance(fork.left, right);
+        }
+        Leaf<T> leaf = (Leaf<T>) list;
+        Object[] data = new Object[leaf.length - 1];
+        System.arraycopy(leaf.data, 0, data, 0, index);
+        System.arraycopy(leaf.data, index + 1, data, index, leaf.length - index - 1);
+        return data.length == 0 ? empty() : new Leaf<>(data);
+    }
+
+    // The first count elements, 0 <= count <= list.length.
+    @Nonnull
+    private static <T> ConcatList<T> take(@Nonnull ConcatList<T> list, int count) {
+        if (count == list.length) {
+            return list;
+        } else if (list instanceof Fork) {
+            Fork<T> fork = (Fork<T>) list;
+            if (count <= fork.left.length) {
+                return take(fork.left, count);
+            }
+            return fork.left.append(take(fork.right, count - fork.left.length));
+        }
+        return leaf(((Leaf<T>) list).data, 0, count);
+    }
+
+    // All but the first count elements, 0 <= count <= list.length.
+    @Nonnull
+    private static <T> ConcatList<T> drop(@Nonnull ConcatList<T> list, int count) {
+        if (count == 0) {
+            return list;
+        } else if (list instanceof Fork) {
+            Fork<T> fork = (Fork<T>) list;
+            if (count >= fork.left.length) {
+                return drop(fork.right, count - fork.left.length);
+            }
+            return drop(fork.left, count).append(fork.right);
+        }
+        return leaf(((Leaf<T>) list).data, count, list.length);
+    }
+
     // used for the debug renderer
     private Object[] toArray() {
+        return this.copyToArray();
+    }
+
+    // Copies the elements into a fresh array, a leaf at a time.
+    @Nonnull
+    private Object[] copyToArray() {
         Object[] out = new Object[this.length];
-        int i = 0;
-        for (T item : this) {
-            out[i] = item;
-            ++i;
+        if (this.length == 0) {
+            return out;
+        }
+        int offset = 0;
+        NodeStack<T> stack = new NodeStack<>(this);
+        while (!stack.isEmpty()) {
+            ConcatList<T> curr = stack.pop();
+            if (curr instanceof Fork) {
+                Fork<T> fork = (Fork<T>) curr;
+                stack.push(fork.right);
+                stack.push(fork.left);
+            } else if (curr instanceof Leaf) {
+                Leaf<T> leaf = (Leaf<T>) curr;
+                System.arraycopy(leaf.data, 0, out, offset, leaf.length);
+                offset += leaf.length;
+            }
         }
         return out;
     }
 
     private final static class Empty<T> extends ConcatList<T> {
         private Empty() {
-            super(0, true);
+            super(0, 0);
+        }
+
+        @Override
+        int calcHashCode() {
+            return 1;
+        }
+
+        @Override
+        int calcPower() {
+            return 1;
         }
 
         @Nonnull
@@ -304,11 +1060,6 @@ public abstract class ConcatList<T> implements Iterable<T> {
             return true;
         }
 
-        @Override
-        public ConcatList<T> balanced() {
-            return this;
-        }
-
         @Override
         Pair<ConcatList<T>, ConcatList<T>> splitInternal(int index) {
             return Pair.of(this, this);
@@ -344,18 +1095,47 @@ public abstract class ConcatList<T> implements Iterable<T> {
     }
 
     private final static class Leaf<T> extends ConcatList<T> {
+        // 1 to CHUNK_SIZE elements; never modified
         @Nonnull
-        public final T data;
+        final Object[] data;
 
-        private Leaf(@Nonnull T data) {
-            super(1, true);
+        private Leaf(@Nonnull Object[] data) {
+            super(data.length, 1);
             this.data = data;
         }
 
+        @Override
+        int calcHashCode() {
+            int hash = 1;
+            for (Object element : this.data) {
+                hash = 31 * hash + Objects.hashCode(element);
+            }
+            return hash;
+        }
+
+        @Override
+        int calcPower() {
+            int power = 1;
+            for (int i = 0; i < this.data.length; i++) {
+                power *= 31;
+            }
+            return power;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Nonnull
+        T get(int index) {
+            return (T) this.data[index];
+        }
+
         @Nonnull
         @Override
         public ImmutableList<T> toList() {
-            return ImmutableList.of(this.data);
+            ImmutableList<T> out = ImmutableList.empty();
+            for (int i = this.length - 1; i >= 0; i--) {
+                out = out.cons(this.get(i));
+            }
+            return out;
         }
 
         @Override
@@ -363,18 +1143,9 @@ public abstract class ConcatList<T> implements Iterable<T> {
             return false;
         }
 
-        @Override
-        public ConcatList<T> balanced() {
-            return this;
-        }
-
         @Override
         Pair<ConcatList<T>, ConcatList<T>> splitInternal(int index) {
-            if (index == 0) {
-                return Pair.of(ConcatList.empty(), this);
-            } else {
-                return Pair.of(this, ConcatList.empty());
-            }
+            return Pair.of(leaf(this.data, 0, index), leaf(this.data, index, this.length));
         }
 
         @SuppressWarnings("unchecked")
@@ -384,18 +1155,38 @@ public abstract class ConcatList<T> implements Iterable<T> {
             if (rhs instanceof Empty) {
                 return this;
             }
-            return new Fork<>(this, (ConcatList<T>) rhs);
+            return join(this, (ConcatList<T>) rhs);
         }
 
         @Nullable
         @Override
         ConcatList<T> updateInternal(int index, @Nonnull T element) {
-            return index == 0 ? single(element) : null;
+            if (index < 0 || index >= this.length) {
+                return null;
+            }
+            Object[] data = this.data.clone();
+            data[index] = element;
+            return new Leaf<>(data);
         }
 
         @Override
         public Iterator<T> iterator() {
-            return Collections.singleton(this.data).iterator();
+            return new Iterator<T>() {
+                private int index = 0;
+
+                @Override
+                public boolean hasNext() {
+                    return this.index < Leaf.this.length;
+                }
+
+                @Override
+                public T next() {
+                    if (this.index >= Leaf.this.length) {
+                        throw new NoSuchElementException();
+                    }
+                    return Leaf.this.get(this.index++);
+                }
+            };
         }
     }
 
@@ -404,28 +1195,42 @@ public abstract class ConcatList<T> implements Iterable<T> {
         public final ConcatList<T> left, right;
 
         private Fork(@Nonnull ConcatList<T> left, @Nonnull ConcatList<T> right) {
-            super(left.length + right.length, left.isBalanced && right.isBalanced && (left.length + right.length < 16 || left.length > right.length / 2 && left.length < right.length * 2));
+            super(left.length + right.length, Math.max(left.height, right.height) + 1);
             this.left = left;
             this.right = right;
         }
 
+        @Override
+        int calcHashCode() {
+            // the recursion is bounded by the height of the tree
+            int power = this.right.power();
+            return this.left.hashCode() * power + this.right.hashCode() - power;
+        }
+
+        @Override
+        int calcPower() {
+            return this.left.power() * this.right.power();
+        }
+
         @Nonnull
         @Override
         public ImmutableList<T> toList() {
             ImmutableList<T> out = ImmutableList.empty();
-            final Stack<ConcatList<T>> stack = new Stack<>();
-            stack.push(this.left);
+            NodeStack<T> stack = new NodeStack<>(this.left);
             ConcatList<T> next = this.right;
             while (true) {
                 if (next instanceof Fork) {
                     stack.push(((Fork<T>) next).left);
                     next = ((Fork<T>) next).right;
                 } else if (next instanceof Leaf) {
-                    out = out.cons(((Leaf<T>) next).data);
-                    if (stack.empty()) break;
+                    Leaf<T> leaf = (Leaf<T>) next;
+                    for (int i = leaf.length - 1; i >= 0; i--) {
+                        out = out.cons(leaf.get(i));
+                    }
+                    if (stack.isEmpty()) break;
                     next = stack.pop();
                 } else { // Empty
-                    if (stack.empty()) break;
+                    if (stack.isEmpty()) break;
                     next = stack.pop();
                 }
             }
@@ -437,48 +1242,18 @@ public abstract class ConcatList<T> implements Iterable<T> {
             return false;
         }
 
-        @Override
-        public ConcatList<T> balanced() {
-            if (this.isBalanced) {
-                return this;
-            }
-            return ConcatList.fromListInternal(this.iterator(), 0, this.length);
-        }
-
         @Override
         @Nonnull
         Pair<ConcatList<T>, ConcatList<T>> splitInternal(int index) {
-            // Manually expanded zipper access
-            Stack<ConcatList<T>> zippers1 = new Stack<>();
-            Stack<Boolean> zippers2 = new Stack<>();
-            ConcatList<T> list = this;
-            while (list instanceof Fork) {
-                ConcatList<T> left = ((Fork<T>) list).left;
-                if (index < left.length) {
-                    zippers1.push(((Fork<T>) list).right);
-                    zippers2.push(false);
-                    list = left;
-                } else {
-                    index -= left.length;
-                    zippers1.push(left);
-                    zippers2.push(true);
-                    list = ((Fork<T>) list).right;
-                }
-            }
-            // list is the first of the right hand side
-            Pair<ConcatList<T>, ConcatList<T>> result = Pair.of(empty(), list);
-            while (!zippers1.isEmpty()) {
-                if (zippers2.pop()) {
-                    result = Pair.of(
-                            zippers1.pop().append(result.left()),
-                            result.right());
-                } else {
-                    result = Pair.of(
-                            result.left(),
-                            result.right().append(zippers1.pop()));
-                }
+            // the recursion is bounded by the height of the tree
+            if (index == this.left.length) {
+                return Pair.of(this.left, this.right);
+            } else if (index < this.left.length) {
+                Pair<ConcatList<T>, ConcatList<T>> split = this.left.splitInternal(index);
+                return Pair.of(split.left, split.right.append(this.right));
             }
-            return result;
+            Pair<ConcatList<T>, ConcatList<T>> split = this.right.splitInternal(index - this.left.length);
+            return Pair.of(this.left.append(split.left), split.right);
         }
 
         @SuppressWarnings("unchecked")
@@ -488,65 +1263,51 @@ public abstract class ConcatList<T> implements Iterable<T> {
             if (rhs instanceof Empty) {
                 return this;
             }
-            return new Fork<>(this, (ConcatList<T>) rhs);
+            return join(this, (ConcatList<T>) rhs);
         }
 
         @Nullable
         @Override
         ConcatList<T> updateInternal(int index, @Nonnull T element) {
-            // Manually expanded zipper access
-            if (index >= this.length) {
+            if (index < 0 || index >= this.length) {
                 return null;
             }
-            Stack<ConcatList<T>> zippers1 = new Stack<>();
-            Stack<Boolean> zippers2 = new Stack<>();
-            ConcatList<T> list = this;
-            while (list instanceof Fork) {
-                ConcatList<T> left = ((Fork<T>) list).left;
-                if (index < left.length) {
-                    zippers1.push(((Fork<T>) list).right);
-                    zippers2.push(false);
-                    list = left;
-                } else {
-                    index -= left.length;
-                    zippers1.push(left);
-                    zippers2.push(true);
-                    list = ((Fork<T>) list).right;
-                }
-            }
-            ConcatList<T> l = ConcatList.single(element);
-            while (!zippers1.isEmpty()) {
-                l = zippers2.pop() ? zippers1.pop().append(l) : l.append(zippers1.pop());
+            // the shape does not change, so the path can be rebuilt without rebalancing
+            if (index < this.left.length) {
+                return new Fork<>(this.left.updateInternal(index, element), this.right);
             }
-            return l;
+            return new Fork<>(this.left, this.right.updateInternal(index - this.left.length, element));
         }
 
         @Override
         public Iterator<T> iterator() {
             return new Iterator<T>() {
-                @SuppressWarnings("unchecked")
-                private final ConcatList<T>[] stack = new ConcatList[Fork.this.length];
-                int i = 0;
-
-                {
-                    this.stack[this.i++] = Fork.this;
-                }
+                private final NodeStack<T> stack = new NodeStack<>(Fork.this);
+                // the leaf being read, and the index of its next element
+                @Nullable
+                private Leaf<T> leaf = null;
+                private int index = 0;
 
                 @Override
                 public boolean hasNext() {
-                    return this.i > 0;
+                    return this.leaf != null && this.index < this.leaf.length || !this.stack.isEmpty();
                 }
 
                 @Override
                 public T next() {
-                    while (this.i > 0) {
-                        ConcatList<T> curr = this.stack[--this.i];
+                    if (this.leaf != null && this.index < this.leaf.length) {
+                        return this.leaf.get(this.index++);
+                    }
+                    while (!this.stack.isEmpty()) {
+                        ConcatList<T> curr = this.stack.pop();
                         if (curr instanceof Fork) {
                             Fork<T> fork = (Fork<T>) curr;
-                            this.stack[this.i++] = fork.right;
-                            this.stack[this.i++] = fork.left;
+                            this.stack.push(fork.right);
+                            this.stack.push(fork.left);
                         } else if (curr instanceof Leaf) {
-                            return ((Leaf<T>) curr).data;
+                            this.leaf = (Leaf<T>) curr;
+                            this.index = 1;
+                            return this.leaf.get(0);
                         }
                     }
                     throw new NoSuchElementException();
@@ -555,26 +1316,167 @@ public abstract class ConcatList<T> implements Iterable<T> {
         }
     }
 
+    // Collects the elements of a traversal into full leaves as they arrive, appending each leaf to
+    // the list as soon as it fills, so the elements are copied only once.
+    static final class Collector<T> implements View.Sink<T> {
+        @Nonnull
+        private ConcatList<T> list = empty();
+        @Nonnull
+        private Object[] data = new Object[CHUNK_SIZE];
+        private int size = 0;
+
+        @Override
+        public boolean accept(@Nonnull T element) {
+            if (this.size == CHUNK_SIZE) {
+                this.list = this.list.append(new Leaf<T>(this.data));
+                this.data = new Object[CHUNK_SIZE];
+                this.size = 0;
+            }
+            this.data[this.size++] = element;
+            return true;
+        }
+
+        @Nonnull
+        ConcatList<T> build() {
+            return this.list.append(leaf(this.data, 0, this.size));
+        }
+    }
+
+    // The stack of a manually expanded traversal. A traversal that replaces a fork by its two
+    // children holds at most one pending node per level of the tree, so sizing it by the height of
+    // the root means it never has to grow.
+    private final static class NodeStack<T> {
+        @Nonnull
+        private ConcatList<T>[] nodes;
+        private int size = 0;
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private NodeStack(int capacity) {
+            this.nodes = new ConcatList[Math.max(2, capacity)];
+        }
+
+        private NodeStack(@Nonnull ConcatList<T> root) {
+            this(root.height + 1);
+            this.nodes[this.size++] = root;
+        }
+
+        private boolean isEmpty() {
+            return this.size == 0;
+        }
+
+        private void push(@Nonnull ConcatList<T> node) {
+            if (this.size == this.nodes.length) {
+                this.nodes = Arrays.copyOf(this.nodes, this.size * 2);
+            }
+            this.nodes[this.size++] = node;
+        }
+
+        private void reverse() {
+            for (int i = 0, j = this.size - 1; i < j; i++, j--) {
+                ConcatList<T> node = this.nodes[i];
+                this.nodes[i] = this.nodes[j];
+                this.nodes[j] = node;
+            }
+        }
+
+        @Nonnull
+        private ConcatList<T> peek() {
+            return this.nodes[this.size - 1];
+        }
+
+        @Nonnull
+        private ConcatList<T> pop() {
+            ConcatList<T> node = this.nodes[--this.size];
+            this.nodes[this.size] = null;
+            return node;
+        }
+    }
+
+    // Runs a bottom-up transformation on the two sides of each fork in parallel, down to grainSize,
+    // and joins the results with append.
+    @SuppressWarnings("serial")
+    private final static class TreeTask<T, B> extends RecursiveTask<ConcatList<B>> {
+        @Nonnull
+        private final ConcatList<T> list;
+        private final int grainSize;
+        @Nonnull
+        private final F<ConcatList<T>, ConcatList<B>> sequential;
+
+        private TreeTask(@Nonnull ConcatList<T> list, int grainSize, @Nonnull F<ConcatList<T>, ConcatList<B>> sequential) {
+            this.list = list;
+            this.grainSize = grainSize;
+            this.sequential = sequential;
+        }
+
+        @Override
+        protected ConcatList<B> compute() {
+            if (!(this.list instanceof Fork) || this.list.length <= this.grainSize) {
+                return this.sequential.apply(this.list);
+            }
+            Fork<T> fork = (Fork<T>) this.list;
+            TreeTask<T, B> left = new TreeTask<>(fork.left, this.grainSize, this.sequential);
+            left.fork();
+            ConcatList<B> right = new TreeTask<>(fork.right, this.grainSize, this.sequential).compute();
+            return left.join().append(right);
+        }
+    }
+
+    @SuppressWarnings("serial")
+    private final static class FoldMapTask<T, M> extends RecursiveTask<M> {
+        @Nonnull
+        private final ConcatList<T> list;
+        @Nonnull
+        private final Monoid<M> monoid;
+        @Nonnull
+        private final F<? super T, M> f;
+        private final int grainSize;
+
+        private FoldMapTask(@Nonnull ConcatList<T> list, @Nonnull Monoid<M> monoid, @Nonnull F<? super T, M> f, int grainSize) {
+            this.list = list;
+            this.monoid = monoid;
+            this.f = f;
+            this.grainSize = grainSize;
+        }
+
+        @Override
+        protected M compute() {
+            if (!(this.list instanceof Fork) || this.list.length <= this.grainSize) {
+                return this.list.foldMap(this.monoid, this.f);
+            }
+            Fork<T> fork = (Fork<T>) this.list;
+            FoldMapTask<T, M> left = new FoldMapTask<>(fork.left, this.monoid, this.f, this.grainSize);
+            left.fork();
+            M right = new FoldMapTask<>(fork.right, this.monoid, this.f, this.grainSize).compute();
+            return this.monoid.append(left.join(), right);
+        }
+    }
+
     private final static class ConcatListSplitIterator<T> implements Spliterator<T> {
+        // the nodes still to traverse after the current leaf, the next one on top
         @Nonnull
-        private final Deque<ConcatList<T>> stack;
+        private final NodeStack<T> stack;
+        // the leaf being read, and the index of its next element
+        @Nullable
+        private Leaf<T> leaf = null;
+        private int index = 0;
         private int size;
 
-        private ConcatListSplitIterator(@Nonnull Deque<ConcatList<T>> stack, int size) {
+        private ConcatListSplitIterator(@Nonnull NodeStack<T> stack, int size) {
             this.stack = stack;
             this.size = size;
         }
 
-
         private ConcatListSplitIterator(@Nonnull ConcatList<T> list) {
-            // Manually expanded recursion
-            this.stack = new ArrayDeque<>(list.length);
-            this.stack.add(list);
-            this.size = list.length;
+            this(new NodeStack<>(list), list.length);
         }
 
         @Override
         public boolean tryAdvance(Consumer<? super T> action) {
+            if (this.leaf != null && this.index < this.leaf.length) {
+                this.size--;
+                action.accept(this.leaf.get(this.index++));
+                return true;
+            }
             while (!this.stack.isEmpty()) {
                 ConcatList<T> curr = this.stack.pop();
                 if (curr instanceof Fork) {
@@ -582,19 +1484,55 @@ public abstract class ConcatList<T> implements Iterable<T> {
                     this.stack.push(fork.right);
                     this.stack.push(fork.left);
                 } else if (curr instanceof Leaf) {
+                    this.leaf = (Leaf<T>) curr;
+                    this.index = 1;
                     this.size--;
-                    action.accept(((Leaf<T>) curr).data);
+                    action.accept(this.leaf.get(0));
                     return true;
                 }
             }
             return false;
         }
 
+        // Hands off exactly the first half of the remaining elements: whole subtrees from the front
+        // of the stack, splitting the first one that does not fit.
+        @Nullable
         @Override
         public Spliterator<T> trySplit() {
-            Deque<ConcatList<T>> newDequeue = new ArrayDeque<>();
-            newDequeue.addAll(this.stack);
-            return new ConcatListSplitIterator<>(newDequeue, this.size);
+            int half = this.size / 2;
+            if (half == 0) {
+                return null;
+            }
+            if (this.leaf != null) {
+                // put back the unread part of the current leaf
+                if (this.index < this.leaf.length) {
+                    this.stack.push(leaf(this.leaf.data, this.index, this.leaf.length));
+                }
+                this.leaf = null;
+            }
+            NodeStack<T> prefix = new NodeStack<>(this.stack.size + 1);
+            int taken = 0;
+            while (taken < half) {
+                ConcatList<T> node = this.stack.pop();
+                if (taken + node.length <= half) {
+                    prefix.push(node);
+                    taken += node.length;
+                } else if (node instanceof Fork) {
+                    Fork<T> fork = (Fork<T>) node;
+                    this.stack.push(fork.right);
+                    this.stack.push(fork.left);
+                } else {
+                    Leaf<T> leaf = (Leaf<T>) node;
+                    int count = half - taken;
+                    prefix.push(leaf(leaf.data, 0, count));
+                    this.stack.push(leaf(leaf.data, count, leaf.length));
+                    taken = half;
+                }
+            }
+            // the prefix was pushed first to last; flip it so that the first node is on top
+            prefix.reverse();
+            this.size -= taken;
+            return new ConcatListSplitIterator<>(prefix, taken);
         }
 
         @Override
@@ -609,6 +1547,13 @@ public abstract class ConcatList<T> implements Iterable<T> {
 
         @Override
         public void forEachRemaining(Consumer<? super T> action) {
+            if (this.leaf != null) {
+                while (this.index < this.leaf.length) {
+                    this.size--;
+                    action.accept(this.leaf.get(this.index++));
+                }
+                this.leaf = null;
+            }
             while (!this.stack.isEmpty()) {
                 ConcatList<T> curr = this.stack.pop();
                 if (curr instanceof Fork) {
@@ -616,11 +1561,81 @@ public abstract class ConcatList<T> implements Iterable<T> {
                     this.stack.push(fork.right);
                     this.stack.push(fork.left);
                 } else if (curr instanceof Leaf) {
-                    this.size--;
-                    action.accept(((Leaf<T>) curr).data);
+                    Leaf<T> leaf = (Leaf<T>) curr;
+                    this.size -= leaf.length;
+                    for (int i = 0; i < leaf.length; i++) {
+                        action.accept(leaf.get(i));
+                    }
+                }
+            }
+        }
+    }
+
+    @Nonnull
+    public final View<T> view() {
+        return View.from(this);
+    }
+
+    /**
+     * @return A view of this list from last to first. Takes constant time and copies nothing; see
+     * {@link #reverse()} for a reversed copy.
+     */
+    @Nonnull
+    public final IndexedView<T> reverseView() {
+        return IndexedView.from(this).reverse();
+    }
+
+    /**
+     * @return A view of the elements from index <code>from</code> (inclusive) to <code>to</code>
+     * (exclusive). Takes constant time and copies nothing; see {@link #slice} for a sliced list.
+     */
+    @Nonnull
+    public final Maybe<IndexedView<T>> sliceView(int from, int to) {
+        return IndexedView.from(this).slice(from, to);
+    }
+
+    /**
+     * @return A cursor at the start of this list, for a pass of local edits that each take
+     * constant time near the cursor.
+     */
+    @Nonnull
+    public final ConcatListZipper<T> zipper() {
+        return ConcatListZipper.from(this);
+    }
+
+    // Pushes the elements in [from, to) of list to sink, last to first if reversed, visiting only
+    // the sub-trees that overlap the range. 0 <= from <= to <= list.length
+    static <T> boolean runRange(@Nonnull ConcatList<T> list, int from, int to, boolean reversed, @Nonnull View.Sink<? super T> sink) {
+        if (from == to) {
+            return true;
+        } else if (list instanceof Fork) {
+            // the recursion is bounded by the height of the tree
+            Fork<T> fork = (Fork<T>) list;
+            int split = fork.left.length;
+            if (to <= split) {
+                return runRange(fork.left, from, to, reversed, sink);
+            } else if (from >= split) {
+                return runRange(fork.right, from - split, to - split, reversed, sink);
+            } else if (reversed) {
+                return runRange(fork.right, 0, to - split, true, sink) && runRange(fork.left, from, split, true, sink);
+            }
+            return runRange(fork.left, from, split, false, sink) && runRange(fork.right, 0, to - split, false, sink);
+        }
+        Leaf<T> leaf = (Leaf<T>) list;
+        if (reversed) {
+            for (int i = to - 1; i >= from; i--) {
+                if (!sink.accept(leaf.get(i))) {
+                    return false;
+                }
+            }
+        } else {
+            for (int i = from; i < to; i++) {
+                if (!sink.accept(leaf.get(i))) {
+                    return false;
                 }
             }
         }
+        return true;
     }
 
     @Override
@@ -628,6 +1643,11 @@ public abstract class ConcatList<T> implements Iterable<T> {
         return new ConcatListSplitIterator<>(this);
     }
 
+    @Nonnull
+    public final Stream<T> stream() {
+        return StreamSupport.stream(this.spliterator(), false);
+    }
+
     private static class BinaryTreeMonoid<T> implements Monoid<ConcatList<T>> {
         @Nonnull
         @Override
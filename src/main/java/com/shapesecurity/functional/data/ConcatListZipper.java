@@ -0,0 +1,179 @@
+/*
+ * Copyright 2014 Shape Security, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.shapesecurity.functional.data;
+
+import com.shapesecurity.functional.Pair;
+
+import javax.annotation.CheckReturnValue;
+import javax.annotation.Nonnull;
+
+/**
+ * A persistent cursor into a {@link ConcatList}. <p> The elements near the cursor are held in two
+ * short cons lists, one on each side, and the rest of the list stays in two trees. {@link #moveLeft},
+ * {@link #moveRight}, {@link #replace}, {@link #insert} and {@link #delete} edit the short lists in
+ * constant time. Only when the cursor moves past the elements it holds is a chunk split off a tree,
+ * or a run of elements it has passed joined back onto one, in O(log n) for every CHUNK_SIZE
+ * elements. {@link #toConcatList()} joins the four parts back together in O(log n) plus the number
+ * of elements held near the cursor. <p> The focus is the element just after the cursor; at the end
+ * of the list there is none. Obtain one with {@link ConcatList#zipper()}.
+ *
+ * @param <T> The type of the elements.
+ */
+@CheckReturnValue
+public final class ConcatListZipper<T> {
+    // the most elements held on either side of the cursor before some are joined back onto a tree
+    private static final int MAX_LOCAL = 2 * ConcatList.CHUNK_SIZE;
+
+    // the elements before the elements held near the cursor
+    @Nonnull
+    private final ConcatList<T> prefix;
+    // the elements just before the cursor, nearest first
+    @Nonnull
+    private final ImmutableList<T> before;
+    // the elements just after the cursor, the focus first; empty only at the end of the list
+    @Nonnull
+    private final ImmutableList<T> after;
+    // the elements after the elements held near the cursor
+    @Nonnull
+    private final ConcatList<T> suffix;
+
+    private ConcatListZipper(@Nonnull ConcatList<T> prefix, @Nonnull ImmutableList<T> before, @Nonnull ImmutableList<T> after, @Nonnull ConcatList<T> suffix) {
+        this.prefix = prefix;
+        this.before = before;
+        this.after = after;
+        this.suffix = suffix;
+    }
+
+    @Nonnull
+    public static <T> ConcatListZipper<T> from(@Nonnull ConcatList<T> list) {
+        return make(ConcatList.empty(), ImmutableList.empty(), ImmutableList.empty(), list);
+    }
+
+    // Restores the invariants: the focus is held near the cursor if there is one, and neither
+    // side holds more than MAX_LOCAL elements.
+    @Nonnull
+    private static <T> ConcatListZipper<T> make(@Nonnull ConcatList<T> prefix, @Nonnull ImmutableList<T> before, @Nonnull ImmutableList<T> after, @Nonnull ConcatList<T> suffix) {
+        if (after.isEmpty() && !suffix.isEmpty()) {
+            Pair<ConcatList<T>, ConcatList<T>> split = suffix.split(Math.min(ConcatList.CHUNK_SIZE, suffix.length)).fromJust();
+            after = split.left.toList();
+            suffix = split.right;
+        } else if (after.length > MAX_LOCAL) {
+            suffix = ConcatList.fromList(after.drop(ConcatList.CHUNK_SIZE).toArrayList()).append(suffix);
+            after = after.take(ConcatList.CHUNK_SIZE);
+        }
+        if (before.length > MAX_LOCAL) {
+            prefix = prefix.append(ConcatList.fromList(before.drop(ConcatList.CHUNK_SIZE).reverse().toArrayList()));
+            before = before.take(ConcatList.CHUNK_SIZE);
+        }
+        return new ConcatListZipper<>(prefix, before, after, suffix);
+    }
+
+    /**
+     * @return The index of the focus in the list.
+     */
+    public int position() {
+        return this.prefix.length + this.before.length;
+    }
+
+    public boolean isAtStart() {
+        return this.before.isEmpty() && this.prefix.isEmpty();
+    }
+
+    public boolean isAtEnd() {
+        return this.after.isEmpty();
+    }
+
+    @Nonnull
+    public Maybe<T> focus() {
+        return this.after.maybeHead();
+    }
+
+    @Nonnull
+    public Maybe<ConcatListZipper<T>> moveLeft() {
+        ConcatList<T> prefix = this.prefix;
+        ImmutableList<T> before = this.before;
+        if (before.isEmpty()) {
+            if (prefix.isEmpty()) {
+                return Maybe.empty();
+            }
+            Pair<ConcatList<T>, ConcatList<T>> split = prefix.split(prefix.length - Math.min(ConcatList.CHUNK_SIZE, prefix.length)).fromJust();
+            prefix = split.left;
+            before = split.right.toList().reverse();
+        }
+        NonEmptyImmutableList<T> nel = (NonEmptyImmutableList<T>) before;
+        return Maybe.of(make(prefix, nel.tail, this.after.cons(nel.head), this.suffix));
+    }
+
+    @Nonnull
+    public Maybe<ConcatListZipper<T>> moveRight() {
+        if (this.after instanceof NonEmptyImmutableList) {
+            NonEmptyImmutableList<T> after = (NonEmptyImmutableList<T>) this.after;
+            return Maybe.of(make(this.prefix, this.before.cons(after.head), after.tail, this.suffix));
+        }
+        return Maybe.empty();
+    }
+
+    /**
+     * Replaces the focus.
+     *
+     * @return <code>Maybe.empty()</code> at the end of the list.
+     */
+    @Nonnull
+    public Maybe<ConcatListZipper<T>> replace(@Nonnull T element) {
+        if (this.after instanceof NonEmptyImmutableList) {
+            return Maybe.of(new ConcatListZipper<>(this.prefix, this.before, ((NonEmptyImmutableList<T>) this.after).tail.cons(element), this.suffix));
+        }
+        return Maybe.empty();
+    }
+
+    /**
+     * Inserts an element at the cursor, which becomes the focus.
+     */
+    @Nonnull
+    public ConcatListZipper<T> insert(@Nonnull T element) {
+        return make(this.prefix, this.before, this.after.cons(element), this.suffix);
+    }
+
+    /**
+     * Removes the focus. The element after it becomes the focus.
+     *
+     * @return <code>Maybe.empty()</code> at the end of the list.
+     */
+    @Nonnull
+    public Maybe<ConcatListZipper<T>> delete() {
+        if (this.after instanceof NonEmptyImmutableList) {
+            return Maybe.of(make(this.prefix, this.before, ((NonEmptyImmutableList<T>) this.after).tail, this.suffix));
+        }
+        return Maybe.empty();
+    }
+
+    /**
+     * @return The edited list. The trees on either side of the cursor are shared, not copied.
+     */
+    @Nonnull
+    public ConcatList<T> toConcatList() {
+        return this.prefix
+            .append(ConcatList.fromList(this.before.reverse().toArrayList()))
+            .append(ConcatList.fromList(this.after.toArrayList()))
+            .append(this.suffix);
+    }
+
+    @Nonnull
+    public ImmutableList<T> toList() {
+        return this.toConcatList().toList();
+    }
+}
@@ -0,0 +1,694 @@
+/*
+ * Copyright 2014 Shape Security, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.shapesecurity.functional.data;
+
+import com.shapesecurity.functional.F;
+import com.shapesecurity.functional.F2;
+import com.shapesecurity.functional.Pair;
+
+import javax.annotation.CheckReturnValue;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * A sequence annotated with a monoidal measure (a 2-3 finger tree, after Hinze and Paterson). <p>
+ * Every element is mapped to a measure by a user supplied function, and every node caches the
+ * combination, under the {@link Monoid}, of the measures of the elements below it. {@link #cons}
+ * and {@link #snoc} take amortized constant time, {@link #append} takes logarithmic time in the
+ * smaller of the two trees, and {@link #split} finds the point at which a predicate on the
+ * accumulated measure turns true in logarithmic time. <p> With the element count as the measure
+ * this is an indexed sequence; with the maximum priority it is a priority queue; with the maximum
+ * interval end it supports interval lookups. <p> {@link #split} and {@link #lookup} assume the
+ * predicate is monotonic: once it holds for some prefix of the sequence it holds for every longer
+ * prefix. <p> The middle tree of each level is built strictly rather than suspended, so the
+ * amortized bounds of {@link #cons}, {@link #snoc}, {@link #maybeTail} and {@link #maybeInit} only
+ * hold when each version is extended once. Repeating an operation on an older version that had to
+ * cascade into the middle tree repeats the cascade, so under such persistent use each of them takes
+ * O(log n) in the worst case.
+ *
+ * @param <T> The super type of all the elements.
+ * @param <M> The type of the measure.
+ */
+@CheckReturnValue
+public abstract class FingerTree<T, M> implements Iterable<T> {
+    @Nonnull
+    final Measured<T, M> measured;
+
+    // package local
+    FingerTree(@Nonnull Measured<T, M> measured) {
+        this.measured = measured;
+    }
+
+    @Nonnull
+    public static <T, M> FingerTree<T, M> empty(@Nonnull Monoid<M> monoid, @Nonnull F<T, M> measure) {
+        return new Measured<>(monoid, measure).empty;
+    }
+
+    @Nonnull
+    public static <T, M> FingerTree<T, M> from(@Nonnull Monoid<M> monoid, @Nonnull F<T, M> measure, @Nonnull Iterable<T> elements) {
+        FingerTree<T, M> tree = empty(monoid, measure);
+        for (T element : elements) {
+            tree = tree.snoc(element);
+        }
+        return tree;
+    }
+
+    /**
+     * @return The combined measure of all the elements, or the identity of the monoid if the tree
+     * is empty. Takes constant time.
+     */
+    @Nonnull
+    public abstract M measure();
+
+    public abstract boolean isEmpty();
+
+    /**
+     * Prepends an element. Amortized O(1); O(log n) in the worst case.
+     */
+    @Nonnull
+    public abstract FingerTree<T, M> cons(@Nonnull T element);
+
+    /**
+     * Appends an element. Amortized O(1); O(log n) in the worst case.
+     */
+    @Nonnull
+    public abstract FingerTree<T, M> snoc(@Nonnull T element);
+
+    // Only called on non-empty trees.
+    @Nonnull
+    abstract T head();
+
+    @Nonnull
+    abstract T last();
+
+    @Nonnull
+    abstract FingerTree<T, M> tail();
+
+    @Nonnull
+    abstract FingerTree<T, M> init();
+
+    // Only called on non-empty trees with !p(i) and p(i + this.measure()).
+    @Nonnull
+    abstract Split<T, M> splitTree(@Nonnull M i, @Nonnull Predicate<M> p);
+
+    abstract void forEachInternal(@Nonnull Consumer<? super T> action);
+
+    @Nonnull
+    public final Maybe<T> maybeHead() {
+        return this.isEmpty() ? Maybe.empty() : Maybe.of(this.head());
+    }
+
+    @Nonnull
+    public final Maybe<T> maybeLast() {
+        return this.isEmpty() ? Maybe.empty() : Maybe.of(this.last());
+    }
+
+    /**
+     * @return The tree without its first element. Amortized O(1); O(log n) in the worst case.
+     */
+    @Nonnull
+    public final Maybe<FingerTree<T, M>> maybeTail() {
+        return this.isEmpty() ? Maybe.empty() : Maybe.of(this.tail());
+    }
+
+    /**
+     * @return The tree without its last element. Amortized O(1); O(log n) in the worst case.
+     */
+    @Nonnull
+    public final Maybe<FingerTree<T, M>> maybeInit() {
+        return this.isEmpty() ? Maybe.empty() : Maybe.of(this.init());
+    }
+
+    /**
+     * Concatenates two trees. Both trees must use the same monoid and measure.
+     */
+    @Nonnull
+    public final FingerTree<T, M> append(@Nonnull FingerTree<T, M> other) {
+        return concat(this, new Object[0], other);
+    }
+
+    /**
+     * Splits the tree before the first element at which <code>p</code>, applied to the measure of
+     * the elements up to and including it, holds. If <code>p</code> does not hold for the measure
+     * of the whole tree, the right part is empty.
+     *
+     * @return A pair <code>(left, right)</code> such that <code>p</code> does not hold for the
+     * measure of <code>left</code> and does hold for that of <code>left</code> plus the first
+     * element of <code>right</code>.
+     */
+    @Nonnull
+    public final Pair<FingerTree<T, M>, FingerTree<T, M>> split(@Nonnull Predicate<M> p) {
+        if (this.isEmpty() || !p.test(this.measure())) {
+            return Pair.of(this, this.measured.empty);
+        }
+        Split<T, M> split = this.splitTree(this.measured.monoid.identity(), p);
+        return Pair.of(split.left, split.right.cons(split.element));
+    }
+
+    /**
+     * @return The first element at which <code>p</code>, applied to the measure of the elements up
+     * to and including it, holds; the element <code>split(p).right</code> starts with.
+     */
+    @Nonnull
+    public final Maybe<T> lookup(@Nonnull Predicate<M> p) {
+        if (this.isEmpty() || !p.test(this.measure())) {
+            return Maybe.empty();
+        }
+        return Maybe.of(this.splitTree(this.measured.monoid.identity(), p).element);
+    }
+
+    @Override
+    public final void forEach(@Nonnull Consumer<? super T> action) {
+        this.forEachInternal(action);
+    }
+
+    @Nonnull
+    public final <B> B foldLeft(@Nonnull F2<B, ? super T, B> f, @Nonnull B init) {
+        for (T element : this) {
+            init = f.apply(init, element);
+        }
+        return init;
+    }
+
+    @Nonnull
+    public final ImmutableList<T> toList() {
+        ImmutableList.Builder<T> builder = ImmutableList.builder();
+        this.forEach(builder::add);
+        return builder.build();
+    }
+
+    @Nonnull
+    @Override
+    public final Iterator<T> iterator() {
+        return new TreeIterator<>(this);
+    }
+
+    // Deep trees whose prefix may be empty: borrows the first node of the middle tree.
+    @Nonnull
+    private static <A, M> FingerTree<A, M> deepLeft(@Nonnull Measured<A, M> measured, @Nonnull Object[] prefix, @Nonnull FingerTree<Node<A, M>, M> middle, @Nonnull Object[] suffix) {
+        if (prefix.length > 0) {
+            return new Deep<>(measured, prefix, middle, suffix);
+        }
+        if (middle.isEmpty()) {
+            return fromDigit(measured, suffix);
+        }
+        return new Deep<>(measured, middle.head().elements, middle.tail(), suffix);
+    }
+
+    // Deep trees whose suffix may be empty: borrows the last node of the middle tree.
+    @Nonnull
+    private static <A, M> FingerTree<A, M> deepRight(@Nonnull Measured<A, M> measured, @Nonnull Object[] prefix, @Nonnull FingerTree<Node<A, M>, M> middle, @Nonnull Object[] suffix) {
+        if (suffix.length > 0) {
+            return new Deep<>(measured, prefix, middle, suffix);
+        }
+        if (middle.isEmpty()) {
+            return fromDigit(measured, prefix);
+        }
+        return new Deep<>(measured, prefix, middle.init(), middle.last().elements);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Nonnull
+    private static <A, M> FingerTree<A, M> fromDigit(@Nonnull Measured<A, M> measured, @Nonnull Object[] digit) {
+        FingerTree<A, M> tree = measured.empty;
+        for (Object element : digit) {
+            tree = tree.snoc((A) element);
+        }
+        return tree;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Nonnull
+    private static <A, M> FingerTree<A, M> concat(@Nonnull FingerTree<A, M> left, @Nonnull Object[] between, @Nonnull FingerTree<A, M> right) {
+        if (left instanceof Empty) {
+            for (int i = between.length - 1; i >= 0; i--) {
+                right = right.cons((A) between[i]);
+            }
+            return right;
+        }
+        if (right instanceof Empty) {
+            for (Object element : between) {
+                left = left.snoc((A) element);
+            }
+            return left;
+        }
+        if (left instanceof Single) {
+            return concat(left.measured.empty, between, right).cons(((Single<A, M>) left).element);
+        }
+        if (right instanceof Single) {
+            return concat(left, between, right.measured.empty).snoc(((Single<A, M>) right).element);
+        }
+        Deep<A, M> l = (Deep<A, M>) left;
+        Deep<A, M> r = (Deep<A, M>) right;
+        Object[] inner = new Object[l.suffix.length + between.length + r.prefix.length];
+        System.arraycopy(l.suffix, 0, inner, 0, l.suffix.length);
+        System.arraycopy(between, 0, inner, l.suffix.length, between.length);
+        System.arraycopy(r.prefix, 0, inner, l.suffix.length + between.length, r.prefix.length);
+        return new Deep<>(l.measured, l.prefix, concat(l.middle, nodes(l.measured, inner), r.middle), r.suffix);
+    }
+
+    // Packs 2 to 12 elements into nodes of 3, using nodes of 2 only at the end.
+    @Nonnull
+    private static <A, M> Object[] nodes(@Nonnull Measured<A, M> measured, @Nonnull Object[] elements) {
+        int n = elements.length;
+        int count = (n + 2) / 3;
+        Object[] nodes = new Object[count];
+        int i = 0;
+        for (int j = 0; j < count; j++) {
+            int remaining = n - i;
+            int size = remaining == 4 || remaining == 2 ? 2 : 3;
+            nodes[j] = new Node<>(measured, Arrays.copyOfRange(elements, i, i + size));
+            i += size;
+        }
+        return nodes;
+    }
+
+    // The index of the first element of digit at which p holds, starting from the measure i; the
+    // last index if there is none.
+    @SuppressWarnings("unchecked")
+    private static <A, M> int splitDigit(@Nonnull Measured<A, M> measured, @Nonnull M i, @Nonnull Predicate<M> p, @Nonnull Object[] digit) {
+        for (int j = 0; j < digit.length - 1; j++) {
+            i = measured.monoid.append(i, measured.measure.apply((A) digit[j]));
+            if (p.test(i)) {
+                return j;
+            }
+        }
+        return digit.length - 1;
+    }
+
+    // The measures and the monoid of one level of the tree. The middle tree of a deep tree holds
+    // nodes, measured by their cached measure.
+    private static final class Measured<A, M> {
+        @Nonnull
+        final Monoid<M> monoid;
+        @Nonnull
+        final F<A, M> measure;
+        @Nonnull
+        final FingerTree<A, M> empty;
+        @Nullable
+        private Measured<Node<A, M>, M> nodes;
+
+        private Measured(@Nonnull Monoid<M> monoid, @Nonnull F<A, M> measure) {
+            this.monoid = monoid;
+            this.measure = measure;
+            this.empty = new Empty<>(this);
+        }
+
+        @Nonnull
+        Measured<Node<A, M>, M> nodes() {
+            // racing threads may each create one; they are interchangeable
+            Measured<Node<A, M>, M> nodes = this.nodes;
+            if (nodes == null) {
+                nodes = new Measured<>(this.monoid, node -> node.measure);
+                this.nodes = nodes;
+            }
+            return nodes;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Nonnull
+        M measure(@Nonnull Object[] digit) {
+            M m = this.measure.apply((A) digit[0]);
+            for (int i = 1; i < digit.length; i++) {
+                m = this.monoid.append(m, this.measure.apply((A) digit[i]));
+            }
+            return m;
+        }
+    }
+
+    // A node of 2 or 3 elements of the level above, with their combined measure.
+    private static final class Node<A, M> {
+        @Nonnull
+        final M measure;
+        @Nonnull
+        final Object[] elements;
+
+        private Node(@Nonnull Measured<A, M> measured, @Nonnull Object[] elements) {
+            this.measure = measured.measure(elements);
+            this.elements = elements;
+        }
+    }
+
+    // Walks a tree from left to right with an explicit stack of the parts still to visit: trees,
+    // nodes and elements, each tagged with its depth, the number of levels of nodes it stands for.
+    // Every tree and node is pushed once and expanded once, so a full traversal is linear.
+    private static final class TreeIterator<T> implements Iterator<T> {
+        @Nonnull
+        private Object[] items = new Object[16];
+        // 2 * depth, plus 1 for a tree
+        @Nonnull
+        private int[] tags = new int[16];
+        private int size = 0;
+
+        private TreeIterator(@Nonnull FingerTree<T, ?> tree) {
+            if (!tree.isEmpty()) {
+                this.push(tree, 1);
+            }
+        }
+
+        private void push(@Nonnull Object item, int tag) {
+            if (this.size == this.items.length) {
+                this.items = Arrays.copyOf(this.items, this.size * 2);
+                this.tags = Arrays.copyOf(this.tags, this.size * 2);
+            }
+            this.items[this.size] = item;
+            this.tags[this.size] = tag;
+            this.size++;
+        }
+
+        // Pushes digit so that its first element is on top.
+        private void pushAll(@Nonnull Object[] digit, int depth) {
+            for (int i = digit.length - 1; i >= 0; i--) {
+                this.push(digit[i], 2 * depth);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            // empty trees are never pushed, so everything on the stack holds an element
+            return this.size > 0;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public T next() {
+            while (this.size > 0) {
+                Object item = this.items[--this.size];
+                int tag = this.tags[this.size];
+                this.items[this.size] = null;
+                int depth = tag >> 1;
+                if ((tag & 1) == 0) {
+                    if (depth == 0) {
+                        return (T) item;
+                    }
+                    this.pushAll(((Node<?, ?>) item).elements, depth - 1);
+                } else if (item instanceof Deep) {
+                    Deep<?, ?> deep = (Deep<?, ?>) item;
+                    this.pushAll(deep.suffix, depth);
+                    if (!deep.middle.isEmpty()) {
+                        this.push(deep.middle, 2 * (depth + 1) + 1);
+                    }
+                    this.pushAll(deep.prefix, depth);
+                } else {
+                    this.push(((Single<?, ?>) item).element, 2 * depth);
+                }
+            }
+            throw new NoSuchElementException();
+        }
+    }
+
+    private static final class Split<A, M> {
+        @Nonnull
+        final FingerTree<A, M> left;
+        @Nonnull
+        final A element;
+        @Nonnull
+        final FingerTree<A, M> right;
+
+        private Split(@Nonnull FingerTree<A, M> left, @Nonnull A element, @Nonnull FingerTree<A, M> right) {
+            this.left = left;
+            this.element = element;
+            this.right = right;
+        }
+    }
+
+    private final static class Empty<T, M> extends FingerTree<T, M> {
+        private Empty(@Nonnull Measured<T, M> measured) {
+            super(measured);
+        }
+
+        @Nonnull
+        @Override
+        public M measure() {
+            return this.measured.monoid.identity();
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return true;
+        }
+
+        @Nonnull
+        @Override
+        public FingerTree<T, M> cons(@Nonnull T element) {
+            return new Single<>(this.measured, element);
+        }
+
+        @Nonnull
+        @Override
+        public FingerTree<T, M> snoc(@Nonnull T element) {
+            return new Single<>(this.measured, element);
+        }
+
+        @Nonnull
+        @Override
+        T head() {
+            throw new IllegalStateException();
+        }
+
+        @Nonnull
+        @Override
+        T last() {
+            throw new IllegalStateException();
+        }
+
+        @Nonnull
+        @Override
+        FingerTree<T, M> tail() {
+            throw new IllegalStateException();
+        }
+
+        @Nonnull
+        @Override
+        FingerTree<T, M> init() {
+            throw new IllegalStateException();
+        }
+
+        @Nonnull
+        @Override
+        Split<T, M> splitTree(@Nonnull M i, @Nonnull Predicate<M> p) {
+            throw new IllegalStateException();
+        }
+
+        @Override
+        void forEachInternal(@Nonnull Consumer<? super T> action) {
+        }
+    }
+
+    private final static class Single<T, M> extends FingerTree<T, M> {
+        @Nonnull
+        final T element;
+        @Nonnull
+        private final M measure;
+
+        private Single(@Nonnull Measured<T, M> measured, @Nonnull T element) {
+            super(measured);
+            this.element = element;
+            this.measure = measured.measure.apply(element);
+        }
+
+        @Nonnull
+        @Override
+        public M measure() {
+            return this.measure;
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return false;
+        }
+
+        @Nonnull
+        @Override
+        public FingerTree<T, M> cons(@Nonnull T element) {
+            return new Deep<>(this.measured, new Object[]{element}, this.measured.nodes().empty, new Object[]{this.element});
+        }
+
+        @Nonnull
+        @Override
+        public FingerTree<T, M> snoc(@Nonnull T element) {
+            return new Deep<>(this.measured, new Object[]{this.element}, this.measured.nodes().empty, new Object[]{element});
+        }
+
+        @Nonnull
+        @Override
+        T head() {
+            return this.element;
+        }
+
+        @Nonnull
+        @Override
+        T last() {
+            return this.element;
+        }
+
+        @Nonnull
+        @Override
+        FingerTree<T, M> tail() {
+            return this.measured.empty;
+        }
+
+        @Nonnull
+        @Override
+        FingerTree<T, M> init() {
+            return this.measured.empty;
+        }
+
+        @Nonnull
+        @Override
+        Split<T, M> splitTree(@Nonnull M i, @Nonnull Predicate<M> p) {
+            return new Split<>(this.measured.empty, this.element, this.measured.empty);
+        }
+
+        @Override
+        void forEachInternal(@Nonnull Consumer<? super T> action) {
+            action.accept(this.element);
+        }
+    }
+
+    private final static class Deep<T, M> extends FingerTree<T, M> {
+        // 1 to 4 elements each
+        @Nonnull
+        final Object[] prefix, suffix;
+        @Nonnull
+        final FingerTree<Node<T, M>, M> middle;
+        @Nonnull
+        private final M measure;
+
+        private Deep(@Nonnull Measured<T, M> measured, @Nonnull Object[] prefix, @Nonnull FingerTree<Node<T, M>, M> middle, @Nonnull Object[] suffix) {
+            super(measured);
+            this.prefix = prefix;
+            this.middle = middle;
+            this.suffix = suffix;
+            Monoid<M> monoid = measured.monoid;
+            this.measure = monoid.append(monoid.append(measured.measure(prefix), middle.measure()), measured.measure(suffix));
+        }
+
+        @Nonnull
+        @Override
+        public M measure() {
+            return this.measure;
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return false;
+        }
+
+        @Nonnull
+        @Override
+        public FingerTree<T, M> cons(@Nonnull T element) {
+            if (this.prefix.length == 4) {
+                Node<T, M> node = new Node<>(this.measured, Arrays.copyOfRange(this.prefix, 1, 4));
+                return new Deep<>(this.measured, new Object[]{element, this.prefix[0]}, this.middle.cons(node), this.suffix);
+            }
+            Object[] prefix = new Object[this.prefix.length + 1];
+            prefix[0] = element;
+            System.arraycopy(this.prefix, 0, prefix, 1, this.prefix.length);
+            return new Deep<>(this.measured, prefix, this.middle, this.suffix);
+        }
+
+        @Nonnull
+        @Override
+        public FingerTree<T, M> snoc(@Nonnull T element) {
+            if (this.suffix.length == 4) {
+                Node<T, M> node = new Node<>(this.measured, Arrays.copyOfRange(this.suffix, 0, 3));
+                return new Deep<>(this.measured, this.prefix, this.middle.snoc(node), new Object[]{this.suffix[3], element});
+            }
+            Object[] suffix = Arrays.copyOf(this.suffix, this.suffix.length + 1);
+            suffix[this.suffix.length] = element;
+            return new Deep<>(this.measured, this.prefix, this.middle, suffix);
+        }
+
+        @SuppressWarnings("unchecked")
+        @Nonnull
+        @Override
+        T head() {
+            return (T) this.prefix[0];
+        }
+
+        @SuppressWarnings("unchecked")
+        @Nonnull
+        @Override
+        T last() {
+            return (T) this.suffix[this.suffix.length - 1];
+        }
+
+        @Nonnull
+        @Override
+        FingerTree<T, M> tail() {
+            return deepLeft(this.measured, Arrays.copyOfRange(this.prefix, 1, this.prefix.length), this.middle, this.suffix);
+        }
+
+        @Nonnull
+        @Override
+        FingerTree<T, M> init() {
+            return deepRight(this.measured, this.prefix, this.middle, Arrays.copyOf(this.suffix, this.suffix.length - 1));
+        }
+
+        @SuppressWarnings("unchecked")
+        @Nonnull
+        @Override
+        Split<T, M> splitTree(@Nonnull M i, @Nonnull Predicate<M> p) {
+            Monoid<M> monoid = this.measured.monoid;
+            M afterPrefix = monoid.append(i, this.measured.measure(this.prefix));
+            if (p.test(afterPrefix)) {
+                int j = splitDigit(this.measured, i, p, this.prefix);
+                return new Split<>(
+                    fromDigit(this.measured, Arrays.copyOfRange(this.prefix, 0, j)),
+                    (T) this.prefix[j],
+                    deepLeft(this.measured, Arrays.copyOfRange(this.prefix, j + 1, this.prefix.length), this.middle, this.suffix));
+            }
+            M afterMiddle = monoid.append(afterPrefix, this.middle.measure());
+            if (p.test(afterMiddle)) {
+                Split<Node<T, M>, M> split = this.middle.splitTree(afterPrefix, p);
+                Object[] elements = split.element.elements;
+                int j = splitDigit(this.measured, monoid.append(afterPrefix, split.left.measure()), p, elements);
+                return new Split<>(
+                    deepRight(this.measured, this.prefix, split.left, Arrays.copyOfRange(elements, 0, j)),
+                    (T) elements[j],
+                    deepLeft(this.measured, Arrays.copyOfRange(elements, j + 1, elements.length), split.right, this.suffix));
+            }
+            int j = splitDigit(this.measured, afterMiddle, p, this.suffix);
+            return new Split<>(
+                deepRight(this.measured, this.prefix, this.middle, Arrays.copyOfRange(this.suffix, 0, j)),
+                (T) this.suffix[j],
+                fromDigit(this.measured, Arrays.copyOfRange(this.suffix, j + 1, this.suffix.length)));
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        void forEachInternal(@Nonnull Consumer<? super T> action) {
+            for (Object element : this.prefix) {
+                action.accept((T) element);
+            }
+            this.middle.forEachInternal(node -> {
+                for (Object element : node.elements) {
+                    action.accept((T) element);
+                }
+            });
+            for (Object element : this.suffix) {
+                action.accept((T) element);
+            }
+        }
+    }
+}
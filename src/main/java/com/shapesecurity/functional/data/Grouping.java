@@ -0,0 +1,107 @@
+/*
+ * Copyright 2014 Shape Security, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.shapesecurity.functional.data;
+
+import com.shapesecurity.functional.F;
+
+import javax.annotation.CheckReturnValue;
+import javax.annotation.Nonnull;
+import java.util.HashMap;
+import java.util.Map;
+
+// One-pass grouping of a collection into a HashTable. Elements are accumulated in a transient
+// java.util.HashMap keyed through the target hasher, and each group is only put into the
+// persistent table once, at the end.
+@CheckReturnValue
+final class Grouping {
+    private Grouping() {
+    }
+
+    @Nonnull
+    static <A, K> MultiHashTable<K, A> groupBy(@Nonnull Iterable<A> source, @Nonnull F<A, K> f) {
+        return groupBy(source, HashTable.equalityHasher(), f);
+    }
+
+    @Nonnull
+    static <A, K> MultiHashTable<K, A> groupBy(@Nonnull Iterable<A> source, @Nonnull Hasher<K> hasher, @Nonnull F<A, K> f) {
+        HashMap<Key<K>, ImmutableList.Builder<A>> groups = new HashMap<>();
+        source.forEach(a -> groups.computeIfAbsent(new Key<>(hasher, f.apply(a)), k -> new ImmutableList.Builder<>()).add(a));
+        HashTable<K, ImmutableList<A>> result = HashTable.empty(hasher);
+        for (Map.Entry<Key<K>, ImmutableList.Builder<A>> entry : groups.entrySet()) {
+            result = result.put(entry.getKey().key, entry.getValue().build());
+        }
+        return MultiHashTable.fromHashTable(result);
+    }
+
+    @Nonnull
+    static <A, K> HashTable<K, Integer> countBy(@Nonnull Iterable<A> source, @Nonnull F<A, K> f) {
+        return countBy(source, HashTable.equalityHasher(), f);
+    }
+
+    @Nonnull
+    static <A, K> HashTable<K, Integer> countBy(@Nonnull Iterable<A> source, @Nonnull Hasher<K> hasher, @Nonnull F<A, K> f) {
+        HashMap<Key<K>, int[]> counts = new HashMap<>();
+        source.forEach(a -> counts.computeIfAbsent(new Key<>(hasher, f.apply(a)), k -> new int[1])[0]++);
+        HashTable<K, Integer> result = HashTable.empty(hasher);
+        for (Map.Entry<Key<K>, int[]> entry : counts.entrySet()) {
+            result = result.put(entry.getKey().key, entry.getValue()[0]);
+        }
+        return result;
+    }
+
+    @Nonnull
+    static <A, K> HashTable<K, A> indexBy(@Nonnull Iterable<A> source, @Nonnull F<A, K> f) {
+        return indexBy(source, HashTable.equalityHasher(), f);
+    }
+
+    @Nonnull
+    static <A, K> HashTable<K, A> indexBy(@Nonnull Iterable<A> source, @Nonnull Hasher<K> hasher, @Nonnull F<A, K> f) {
+        HashMap<Key<K>, A> index = new HashMap<>();
+        source.forEach(a -> index.put(new Key<>(hasher, f.apply(a)), a));
+        HashTable<K, A> result = HashTable.empty(hasher);
+        for (Map.Entry<Key<K>, A> entry : index.entrySet()) {
+            result = result.put(entry.getKey().key, entry.getValue());
+        }
+        return result;
+    }
+
+    // Makes java.util.HashMap hash and compare keys the way the target HashTable does.
+    private static final class Key<K> {
+        @Nonnull
+        final Hasher<K> hasher;
+        @Nonnull
+        final K key;
+        final int hash;
+
+        Key(@Nonnull Hasher<K> hasher, @Nonnull K key) {
+            this.hasher = hasher;
+            this.key = key;
+            this.hash = hasher.hash(key);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hash;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key && this.hash == ((Key<K>) o).hash && this.hasher.eq(this.key, ((Key<K>) o).key);
+        }
+    }
+}
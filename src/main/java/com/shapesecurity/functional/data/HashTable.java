@@ -19,7 +19,9 @@ package com.shapesecurity.functional.data;
 import com.shapesecurity.functional.Effect;
 import com.shapesecurity.functional.F;
 import com.shapesecurity.functional.F2;
+import com.shapesecurity.functional.IntObjF2;
 import com.shapesecurity.functional.Pair;
+import com.shapesecurity.functional.ToIntF;
 import com.shapesecurity.functional.Unit;
 import org.jetbrains.annotations.Debug;
 
@@ -29,11 +31,13 @@ import javax.annotation.Nullable;
 import java.util.HashMap;
 import java.util.IdentityHashMap;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 /**
  * An immutable hash trie tree implementation.
@@ -269,15 +273,95 @@ public abstract class HashTable<K, V> implements Iterable<Pair<K, V>> {
 
     public abstract void forEach(@Nonnull Consumer<? super Pair<K, V>> e);
 
+    /**
+     * Passes the entries to <code>f</code> in chunks of <code>size</code>, read directly from the
+     * leaves of the trie. The same array is reused for every full chunk; a shorter last chunk gets
+     * an array of its own.
+     */
+    public final void forEachChunk(int size, @Nonnull Consumer<Object[]> f) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("HashTable::forEachChunk requires a positive size.");
+        }
+        if (this.length == 0) {
+            return;
+        }
+        Object[] chunk = new Object[Math.min(size, this.length)];
+        int filled = fillChunks(this, chunk, 0, f);
+        if (filled > 0) {
+            f.accept(Arrays.copyOf(chunk, filled));
+        }
+    }
+
+    // Recursion is bounded by the depth of the trie.
+    private static <K, V> int fillChunks(@Nonnull HashTable<K, V> node, @Nonnull Object[] chunk, int filled, @Nonnull Consumer<Object[]> f) {
+        if (node instanceof Leaf) {
+            ImmutableList<Pair<K, V>> list = ((Leaf<K, V>) node).dataList;
+            while (list instanceof NonEmptyImmutableList) {
+                chunk[filled++] = ((NonEmptyImmutableList<Pair<K, V>>) list).head;
+                if (filled == chunk.length) {
+                    f.accept(chunk);
+                    filled = 0;
+                }
+                list = ((NonEmptyImmutableList<Pair<K, V>>) list).tail;
+            }
+        } else if (node instanceof Fork) {
+            for (@Nullable HashTable<K, V> child : ((Fork<K, V>) node).children) {
+                if (child != null) {
+                    filled = fillChunks(child, chunk, filled, f);
+                }
+            }
+        }
+        return filled;
+    }
+
+    @Nonnull
+    public final ImmutableList<ImmutableList<Pair<K, V>>> grouped(int size) {
+        return this.entries().grouped(size);
+    }
+
+    @Nonnull
+    public final ImmutableList<ImmutableList<Pair<K, V>>> sliding(int size, int step) {
+        return this.entries().sliding(size, step);
+    }
+
     @Nonnull
-    public abstract Maybe<Pair<K, V>> find(@Nonnull F<Pair<K, V>, Boolean> f);
+    public final Maybe<Pair<K, V>> find(@Nonnull F<Pair<K, V>, Boolean> f) {
+        return this.findByPredicate(f::apply);
+    }
+
+    @Nonnull
+    public abstract Maybe<Pair<K, V>> findByPredicate(@Nonnull Predicate<Pair<K, V>> f);
+
+    public final boolean existsByPredicate(@Nonnull Predicate<Pair<K, V>> f) {
+        return this.findByPredicate(f).isJust();
+    }
+
+    public final int countByPredicate(@Nonnull Predicate<Pair<K, V>> f) {
+        return this.foldLeftInt((acc, pair) -> f.test(pair) ? acc + 1 : acc, 0);
+    }
+
+    public final int foldLeftInt(@Nonnull IntObjF2<Pair<K, V>> f, int init) {
+        for (Pair<K, V> pair : this) {
+            init = f.apply(init, pair);
+        }
+        return init;
+    }
+
+    public final int sumInt(@Nonnull ToIntF<Pair<K, V>> f) {
+        return this.foldLeftInt((acc, pair) -> acc + f.apply(pair), 0);
+    }
 
     @Nonnull
     public abstract <R> Maybe<R> findMap(@Nonnull F<Pair<K, V>, Maybe<R>> f);
 
     @Nonnull
     public final HashTable<K, V> filter(F<Pair<K, V>, Boolean> f) {
-        return this.foldLeft((acc, pair) -> f.apply(pair) ? acc.put(pair.left, pair.right) : acc, empty(this.hasher));
+        return this.filterByPredicate(f::apply);
+    }
+
+    @Nonnull
+    public final HashTable<K, V> filterByPredicate(@Nonnull Predicate<Pair<K, V>> f) {
+        return this.foldLeft((acc, pair) -> f.test(pair) ? acc.put(pair.left, pair.right) : acc, empty(this.hasher));
     }
 
     public abstract <B> HashTable<K, B> map(@Nonnull F<V, B> f);
@@ -366,7 +450,7 @@ public abstract class HashTable<K, V> implements Iterable<Pair<K, V>> {
 
         @Nonnull
         @Override
-        public Maybe<Pair<K, V>> find(@Nonnull F<Pair<K, V>, Boolean> f) {
+        public Maybe<Pair<K, V>> findByPredicate(@Nonnull Predicate<Pair<K, V>> f) {
             return Maybe.empty();
         }
 
@@ -518,8 +602,8 @@ public abstract class HashTable<K, V> implements Iterable<Pair<K, V>> {
 
         @Nonnull
         @Override
-        public Maybe<Pair<K, V>> find(@Nonnull F<Pair<K, V>, Boolean> f) {
-            return this.dataList.find(f);
+        public Maybe<Pair<K, V>> findByPredicate(@Nonnull Predicate<Pair<K, V>> f) {
+            return this.dataList.findByPredicate(f);
         }
 
         @Nonnull
@@ -540,6 +624,66 @@ public abstract class HashTable<K, V> implements Iterable<Pair<K, V>> {
         }
     }
 
+    // Walks the trie depth first, keeping only the path from the root. Each level of forks consumes
+    // 5 bits of the hash, so there are at most 7 forks on a path.
+    private final static class ForkIterator<K, V> implements Iterator<Pair<K, V>> {
+        private static final int MAX_DEPTH = 7;
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        @Nonnull
+        private final Fork<K, V>[] forks = new Fork[MAX_DEPTH];
+        // nextChild[d] is the index of the next child of forks[d] to visit
+        @Nonnull
+        private final int[] nextChild = new int[MAX_DEPTH];
+        private int depth = 1;
+        // the entries of the current leaf that have not been returned yet
+        @Nonnull
+        private ImmutableList<Pair<K, V>> current = ImmutableList.empty();
+
+        private ForkIterator(@Nonnull Fork<K, V> root) {
+            this.forks[0] = root;
+        }
+
+        private void advance() {
+            while (this.current.isEmpty() && this.depth > 0) {
+                int level = this.depth - 1;
+                HashTable<K, V>[] children = this.forks[level].children;
+                int i = this.nextChild[level];
+                if (i == children.length) {
+                    this.forks[level] = null;
+                    this.depth--;
+                    continue;
+                }
+                this.nextChild[level] = i + 1;
+                HashTable<K, V> child = children[i];
+                if (child instanceof Leaf) {
+                    this.current = ((Leaf<K, V>) child).dataList;
+                } else if (child instanceof Fork) {
+                    this.forks[this.depth] = (Fork<K, V>) child;
+                    this.nextChild[this.depth] = 0;
+                    this.depth++;
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            this.advance();
+            return !this.current.isEmpty();
+        }
+
+        @Override
+        public Pair<K, V> next() {
+            this.advance();
+            if (this.current.isEmpty()) {
+                throw new NoSuchElementException();
+            }
+            NonEmptyImmutableList<Pair<K, V>> list = (NonEmptyImmutableList<Pair<K, V>>) this.current;
+            this.current = list.tail;
+            return list.head;
+        }
+    }
+
     private final static class Fork<K, V> extends HashTable<K, V> {
         @Nonnull
         private final HashTable<K, V>[] children;
@@ -645,59 +789,7 @@ public abstract class HashTable<K, V> implements Iterable<Pair<K, V>> {
         }
 
         public Iterator<Pair<K, V>> iterator() {
-            return new Iterator<Pair<K, V>>() {
-                @SuppressWarnings("unchecked")
-                private final HashTable<K, V>[] stack = new HashTable[Fork.this.length];
-                private Iterator<Pair<K, V>> currentIterator = null;
-                int i = 0;
-
-                {
-                    this.stack[this.i++] = Fork.this;
-                }
-
-                private void updateState() {
-                    if (currentIterator != null && currentIterator.hasNext()) {
-                        return;
-                    } else {
-                        currentIterator = null;
-                    }
-                    while (this.i > 0) {
-                        this.i--;
-                        HashTable<K, V> curr = this.stack[this.i];
-                        if (curr instanceof Fork) {
-                            Fork<K, V> fork = (Fork<K, V>) curr;
-                            for (HashTable<K, V> child : fork.children) {
-                                if (child != null && child.length > 0) {
-                                    this.stack[this.i] = child;
-                                    this.i++;
-                                }
-                            }
-                        } else if (curr instanceof Leaf) {
-                            currentIterator = ((Leaf<K, V>) curr).dataList.iterator();
-                            if (currentIterator.hasNext()) {
-                                return;
-                            } else {
-                                currentIterator = null;
-                            }
-                        }
-                    }
-                }
-
-                @Override
-                public boolean hasNext() {
-                    updateState();
-                    return currentIterator != null;
-                }
-
-                @Override
-                public Pair<K, V> next() {
-                    updateState();
-                    if (currentIterator == null) {
-                        throw new NoSuchElementException();
-                    }
-                    return currentIterator.next();
-                }
-            };
+            return new ForkIterator<>(this);
         }
 
         @Override
@@ -711,11 +803,11 @@ public abstract class HashTable<K, V> implements Iterable<Pair<K, V>> {
 
         @Nonnull
         @Override
-        public Maybe<Pair<K, V>> find(@Nonnull F<Pair<K, V>, Boolean> f) {
+        public Maybe<Pair<K, V>> findByPredicate(@Nonnull Predicate<Pair<K, V>> f) {
             HashTable<K, V>[] children = this.children;
             for (HashTable<K, V> child : children) {
                 if (child != null) {
-                    Maybe<Pair<K, V>> p = child.find(f);
+                    Maybe<Pair<K, V>> p = child.findByPredicate(f);
                     if (p.isJust()) {
                         return p;
                     }
@@ -0,0 +1,333 @@
+/*
+ * Copyright 2014 Shape Security, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.shapesecurity.functional.data;
+
+import com.shapesecurity.functional.IntBoolF;
+import com.shapesecurity.functional.IntF;
+import com.shapesecurity.functional.IntF2;
+
+import javax.annotation.CheckReturnValue;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+
+/**
+ * An immutable singly linked list of unboxed <code>int</code>s. <p> Elements are stored in
+ * chunks: arrays that are filled from the end towards the front. Consing onto a list whose head
+ * is the first used slot of its chunk claims the next free slot of that chunk instead of
+ * allocating a node; only when the chunk is full (or the slot was already claimed by another
+ * list sharing the chunk) is a new chunk allocated. A run of conses continues into chunks that
+ * double in size up to 256 slots, so a list built by repeated {@link #cons} takes O(n) space with
+ * few chunks, while a cons that branches off a shared list starts a small chunk of its own.
+ */
+@CheckReturnValue
+public final class ImmutableIntList {
+    private static final ImmutableIntList EMPTY = new ImmutableIntList(null, 0, 0);
+
+    // null for the empty list
+    @Nullable
+    private final Chunk chunk;
+    // index of the head in chunk.elements
+    private final int offset;
+    public final int length;
+
+    private ImmutableIntList(@Nullable Chunk chunk, int offset, int length) {
+        this.chunk = chunk;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    @Nonnull
+    public static ImmutableIntList empty() {
+        return EMPTY;
+    }
+
+    @Nonnull
+    public static ImmutableIntList of(@Nonnull int... elements) {
+        return from(elements, elements.length);
+    }
+
+    // Packs the first `length` elements of `elements` into a single chunk.
+    @Nonnull
+    private static ImmutableIntList from(@Nonnull int[] elements, int length) {
+        if (length == 0) {
+            return EMPTY;
+        }
+        Chunk chunk = new Chunk(Arrays.copyOf(elements, length), 0, EMPTY, false);
+        return new ImmutableIntList(chunk, 0, length);
+    }
+
+    public boolean isEmpty() {
+        return this.length == 0;
+    }
+
+    /**
+     * Prepends an element to the list. Shares the storage of this list and, when possible, its
+     * chunk.
+     */
+    @Nonnull
+    public ImmutableIntList cons(int head) {
+        Chunk chunk = this.chunk;
+        if (chunk != null && this.offset > 0 && chunk.firstUsed.compareAndSet(this.offset, this.offset - 1)) {
+            chunk.elements[this.offset - 1] = head;
+            return new ImmutableIntList(chunk, this.offset - 1, this.length + 1);
+        }
+        // only the first cons onto the front of a full cons chunk continues its run; marking the
+        // chunk with -1 sends every later branch to a small chunk
+        int filledCapacity = chunk != null && this.offset == 0 && chunk.builtByCons && chunk.firstUsed.compareAndSet(0, -1)
+            ? chunk.elements.length
+            : 0;
+        int capacity = UnboxedChunks.nextCapacity(filledCapacity);
+        int[] elements = new int[capacity];
+        elements[capacity - 1] = head;
+        return new ImmutableIntList(new Chunk(elements, capacity - 1, this, true), capacity - 1, this.length + 1);
+    }
+
+    @Nonnull
+    public Maybe<Integer> maybeHead() {
+        return this.chunk == null ? Maybe.empty() : Maybe.of(this.chunk.elements[this.offset]);
+    }
+
+    @Nonnull
+    public Maybe<ImmutableIntList> maybeTail() {
+        return this.chunk == null ? Maybe.empty() : Maybe.of(this.tail());
+    }
+
+    /**
+     * @param defaultValue Returned when the list is empty.
+     * @return The first element of the list, without boxing it.
+     */
+    public int headOr(int defaultValue) {
+        return this.chunk == null ? defaultValue : this.chunk.elements[this.offset];
+    }
+
+    // Only called on non-empty lists.
+    @Nonnull
+    private ImmutableIntList tail() {
+        Chunk chunk = this.chunk;
+        if (this.offset + 1 < chunk.elements.length) {
+            return new ImmutableIntList(chunk, this.offset + 1, this.length - 1);
+        }
+        return chunk.next;
+    }
+
+    @Nonnull
+    public Maybe<Integer> index(int index) {
+        if (index < 0 || index >= this.length) {
+            return Maybe.empty();
+        }
+        ImmutableIntList list = this;
+        while (true) {
+            int inChunk = list.chunk.elements.length - list.offset;
+            if (index < inChunk) {
+                return Maybe.of(list.chunk.elements[list.offset + index]);
+            }
+            index -= inChunk;
+            list = list.chunk.next;
+        }
+    }
+
+    public void forEach(@Nonnull IntConsumer f) {
+        for (ImmutableIntList list = this; list.chunk != null; list = list.chunk.next) {
+            int[] elements = list.chunk.elements;
+            for (int i = list.offset; i < elements.length; i++) {
+                f.accept(elements[i]);
+            }
+        }
+    }
+
+    public int foldLeft(@Nonnull IntF2 f, int init) {
+        for (ImmutableIntList list = this; list.chunk != null; list = list.chunk.next) {
+            int[] elements = list.chunk.elements;
+            for (int i = list.offset; i < elements.length; i++) {
+                init = f.apply(init, elements[i]);
+            }
+        }
+        return init;
+    }
+
+    public int foldRight(@Nonnull IntF2 f, int init) {
+        int[] elements = this.toArray();
+        for (int i = elements.length - 1; i >= 0; i--) {
+            init = f.apply(elements[i], init);
+        }
+        return init;
+    }
+
+    public int sum() {
+        int sum = 0;
+        for (ImmutableIntList list = this; list.chunk != null; list = list.chunk.next) {
+            int[] elements = list.chunk.elements;
+            for (int i = list.offset; i < elements.length; i++) {
+                sum += elements[i];
+            }
+        }
+        return sum;
+    }
+
+    public boolean exists(@Nonnull IntBoolF f) {
+        for (ImmutableIntList list = this; list.chunk != null; list = list.chunk.next) {
+            int[] elements = list.chunk.elements;
+            for (int i = list.offset; i < elements.length; i++) {
+                if (f.apply(elements[i])) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    public boolean every(@Nonnull IntBoolF f) {
+        return !this.exists(x -> !f.apply(x));
+    }
+
+    public int count(@Nonnull IntBoolF f) {
+        int count = 0;
+        for (ImmutableIntList list = this; list.chunk != null; list = list.chunk.next) {
+            int[] elements = list.chunk.elements;
+            for (int i = list.offset; i < elements.length; i++) {
+                if (f.apply(elements[i])) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return A list of the results of <code>f</code>, stored in a single chunk.
+     */
+    @Nonnull
+    public ImmutableIntList map(@Nonnull IntF f) {
+        int[] result = new int[this.length];
+        int j = 0;
+        for (ImmutableIntList list = this; list.chunk != null; list = list.chunk.next) {
+            int[] elements = list.chunk.elements;
+            for (int i = list.offset; i < elements.length; i++) {
+                result[j++] = f.apply(elements[i]);
+            }
+        }
+        return from(result, result.length);
+    }
+
+    /**
+     * @return A list of the elements satisfying <code>f</code>, stored in a single chunk.
+     */
+    @Nonnull
+    public ImmutableIntList filter(@Nonnull IntBoolF f) {
+        int[] result = new int[this.length];
+        int j = 0;
+        for (ImmutableIntList list = this; list.chunk != null; list = list.chunk.next) {
+            int[] elements = list.chunk.elements;
+            for (int i = list.offset; i < elements.length; i++) {
+                if (f.apply(elements[i])) {
+                    result[j++] = elements[i];
+                }
+            }
+        }
+        if (j == this.length) {
+            return this;
+        }
+        return from(result, j);
+    }
+
+    @Nonnull
+    public ImmutableIntList reverse() {
+        int[] result = new int[this.length];
+        int j = this.length;
+        for (ImmutableIntList list = this; list.chunk != null; list = list.chunk.next) {
+            int[] elements = list.chunk.elements;
+            for (int i = list.offset; i < elements.length; i++) {
+                result[--j] = elements[i];
+            }
+        }
+        return from(result, result.length);
+    }
+
+    @Nonnull
+    public int[] toArray() {
+        int[] result = new int[this.length];
+        int j = 0;
+        for (ImmutableIntList list = this; list.chunk != null; list = list.chunk.next) {
+            Chunk chunk = list.chunk;
+            int count = chunk.elements.length - list.offset;
+            System.arraycopy(chunk.elements, list.offset, result, j, count);
+            j += count;
+        }
+        return result;
+    }
+
+    /**
+     * Boxes the elements into an {@link ImmutableList}.
+     */
+    @Nonnull
+    public ImmutableList<Integer> toList() {
+        int[] elements = this.toArray();
+        ImmutableList<Integer> list = ImmutableList.empty();
+        for (int i = elements.length - 1; i >= 0; i--) {
+            list = list.cons(elements[i]);
+        }
+        return list;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ImmutableIntList)) {
+            return false;
+        }
+        ImmutableIntList other = (ImmutableIntList) o;
+        return this.length == other.length && Arrays.equals(this.toArray(), other.toArray());
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = HashCodeBuilder.init();
+        for (ImmutableIntList list = this; list.chunk != null; list = list.chunk.next) {
+            int[] elements = list.chunk.elements;
+            for (int i = list.offset; i < elements.length; i++) {
+                hash = 31 * hash + elements[i];
+            }
+        }
+        return hash;
+    }
+
+    private static final class Chunk {
+        // elements[firstUsed.get()..] are in use by some list; slots before that may be claimed by
+        // cons. -1 once a full chunk has been continued by cons.
+        @Nonnull
+        final int[] elements;
+        @Nonnull
+        final AtomicInteger firstUsed;
+        // the list that follows the last element of this chunk
+        @Nonnull
+        final ImmutableIntList next;
+        // whether this chunk was started by cons, rather than packed by of, map, filter or reverse
+        final boolean builtByCons;
+
+        Chunk(@Nonnull int[] elements, int firstUsed, @Nonnull ImmutableIntList next, boolean builtByCons) {
+            this.elements = elements;
+            this.firstUsed = new AtomicInteger(firstUsed);
+            this.next = next;
+            this.builtByCons = builtByCons;
+        }
+    }
+}
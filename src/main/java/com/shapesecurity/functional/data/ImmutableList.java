@@ -19,13 +19,17 @@ package com.shapesecurity.functional.data;
 import com.shapesecurity.functional.Effect;
 import com.shapesecurity.functional.F;
 import com.shapesecurity.functional.F2;
+import com.shapesecurity.functional.IntObjF2;
 import com.shapesecurity.functional.Pair;
+import com.shapesecurity.functional.ToIntF;
 
 import javax.annotation.CheckReturnValue;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.lang.reflect.Array;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.Deque;
 import java.util.Iterator;
@@ -33,12 +37,14 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Spliterator;
-import java.util.Spliterators;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 import java.util.Set;
 import java.util.function.BiConsumer;
 import java.util.function.BinaryOperator;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.IntConsumer;
 import java.util.function.Predicate;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
@@ -68,8 +74,11 @@ import org.jetbrains.annotations.Debug.Renderer;
 public abstract class ImmutableList<A> implements Iterable<A> {
     @SuppressWarnings("StaticInitializerReferencesSubClass")
     private static final ImmutableList<Object> EMPTY = new Nil<>();
-    @Nullable
-    private volatile Integer hashCode = null;
+    // 0 means "not yet computed", unless hashIsZero is set. No synchronization is needed because
+    // calcHashCode has no side-effects and int writes are atomic.
+    private int hashCode = 0;
+    // set when the computed hash code is 0, so that it is not mistaken for one not yet computed
+    private boolean hashIsZero = false;
 
     /**
      * The length of the list.
@@ -123,9 +132,7 @@ public abstract class ImmutableList<A> implements Iterable<A> {
             }
             return l;
         }
-        ArrayList<A> arrayList = new ArrayList<>();
-        list.forEach(arrayList::add);
-        return from(arrayList);
+        return new Builder<A>().addAll(list).build();
     }
 
     /**
@@ -247,23 +254,32 @@ public abstract class ImmutableList<A> implements Iterable<A> {
     @Override
     public final int hashCode() {
         // Manually expanded thunk
-        Integer hashCodeCached = this.hashCode;
-        if (hashCodeCached == null) {
+        int hashCodeCached = this.hashCode;
+        if (hashCodeCached == 0 && !this.hashIsZero) {
             // This is safe because calcHashCode has no side-effects.
             int hc = this.calcHashCode();
-            this.hashCode = hc;
+            this.setCachedHashCode(hc);
             return hc;
         } else {
             return hashCodeCached;
         }
     }
 
-    protected final Integer getCachedHashCode() {
+    protected final boolean hasCachedHashCode() {
+        return this.hashCode != 0 || this.hashIsZero;
+    }
+
+    // Only meaningful if hasCachedHashCode().
+    protected final int getCachedHashCode() {
         return this.hashCode;
     }
 
-    protected final void setCachedHashCode(Integer hashCode) {
-        this.hashCode = hashCode;
+    protected final void setCachedHashCode(int hashCode) {
+        if (hashCode == 0) {
+            this.hashIsZero = true;
+        } else {
+            this.hashCode = hashCode;
+        }
     }
 
     /**
@@ -312,7 +328,7 @@ public abstract class ImmutableList<A> implements Iterable<A> {
 
     @Override
     public final Spliterator<A> spliterator() {
-        return Spliterators.spliterator(iterator(), this.length, Spliterator.IMMUTABLE | Spliterator.NONNULL);
+        return new ImmutableListSpliterator<>(this, this.length);
     }
 
     @Nonnull
@@ -320,6 +336,51 @@ public abstract class ImmutableList<A> implements Iterable<A> {
         return StreamSupport.stream(this.spliterator(), false);
     }
 
+    /**
+     * Creates a lazy {@link View} of this list. Chained operations on the view are fused into a
+     * single pass over this list when a terminal operation is called, instead of building an
+     * intermediate list at every step.
+     *
+     * @return A view over the elements of this list.
+     */
+    @Nonnull
+    public final View<A> view() {
+        return View.from(this);
+    }
+
+    /**
+     * Creates a view of this list from last to first, without building a reversed list. The view
+     * is created in constant time; each traversal of it buffers the elements in a temporary array.
+     *
+     * @return A reversed view over the elements of this list.
+     */
+    @Nonnull
+    public final IndexedView<A> reverseView() {
+        return IndexedView.from(this).reverse();
+    }
+
+    /**
+     * Creates a view of the elements from index <code>from</code> (inclusive) to <code>to</code>
+     * (exclusive) in constant time, without copying them.
+     *
+     * @return A view over the range, or <code>Maybe.empty()</code> if the range is out of bounds.
+     */
+    @Nonnull
+    public final Maybe<IndexedView<A>> sliceView(int from, int to) {
+        return IndexedView.from(this).slice(from, to);
+    }
+
+    /**
+     * Creates a cursor at the start of this list, for a pass of local edits that each take
+     * constant time.
+     *
+     * @return A cursor focused on the first element.
+     */
+    @Nonnull
+    public final ListZipper<A> zipper() {
+        return ListZipper.from(this);
+    }
+
     // Methods
 
     /**
@@ -705,11 +766,18 @@ public abstract class ImmutableList<A> implements Iterable<A> {
      */
     @Nonnull
     public final Maybe<A> find(@Nonnull F<A, Boolean> f) {
+        return this.findByPredicate(f::apply);
+    }
+
+    /**
+     * Like {@link #find(F)}, but with a predicate that returns an unboxed <code>boolean</code>.
+     */
+    @Nonnull
+    public final Maybe<A> findByPredicate(@Nonnull Predicate<A> f) {
         ImmutableList<A> self = this;
         while (self instanceof NonEmptyImmutableList) {
             NonEmptyImmutableList<A> selfNel = (NonEmptyImmutableList<A>) self;
-            boolean result = f.apply(selfNel.head);
-            if (result) {
+            if (f.test(selfNel.head)) {
                 return Maybe.of(selfNel.head);
             }
             self = selfNel.tail();
@@ -727,11 +795,19 @@ public abstract class ImmutableList<A> implements Iterable<A> {
      */
     @Nonnull
     public final Maybe<Integer> findIndex(@Nonnull F<A, Boolean> f) {
+        return this.findIndexByPredicate(f::apply);
+    }
+
+    /**
+     * Like {@link #findIndex(F)}, but with a predicate that returns an unboxed <code>boolean</code>.
+     */
+    @Nonnull
+    public final Maybe<Integer> findIndexByPredicate(@Nonnull Predicate<A> f) {
         ImmutableList<A> self = this;
         int i = 0;
         while (self instanceof NonEmptyImmutableList) {
             NonEmptyImmutableList<A> selfNel = (NonEmptyImmutableList<A>) self;
-            if (f.apply(selfNel.head)) {
+            if (f.test(selfNel.head)) {
                 return Maybe.of(i);
             }
             self = selfNel.tail();
@@ -740,6 +816,87 @@ public abstract class ImmutableList<A> implements Iterable<A> {
         return Maybe.empty();
     }
 
+    /**
+     * Like {@link #filter(F)}, but with a predicate that returns an unboxed <code>boolean</code>.
+     */
+    @Nonnull
+    public final ImmutableList<A> filterByPredicate(@Nonnull Predicate<A> f) {
+        @SuppressWarnings("unchecked")
+        A[] result = (A[]) new Object[this.length];
+        int j = 0;
+        ImmutableList<A> self = this;
+        while (self instanceof NonEmptyImmutableList) {
+            NonEmptyImmutableList<A> selfNel = (NonEmptyImmutableList<A>) self;
+            if (f.test(selfNel.head)) {
+                result[j++] = selfNel.head;
+            }
+            self = selfNel.tail;
+        }
+        return j == this.length ? this : fromBounded(result, 0, j);
+    }
+
+    /**
+     * Like {@link #count(F)}, but with a predicate that returns an unboxed <code>boolean</code>.
+     */
+    public final int countByPredicate(@Nonnull Predicate<A> f) {
+        int count = 0;
+        ImmutableList<A> self = this;
+        while (self instanceof NonEmptyImmutableList) {
+            NonEmptyImmutableList<A> selfNel = (NonEmptyImmutableList<A>) self;
+            if (f.test(selfNel.head)) {
+                count++;
+            }
+            self = selfNel.tail;
+        }
+        return count;
+    }
+
+    /**
+     * Like {@link #exists(F)}, but with a predicate that returns an unboxed <code>boolean</code>.
+     */
+    public final boolean existsByPredicate(@Nonnull Predicate<A> f) {
+        return this.findIndexByPredicate(f).isJust();
+    }
+
+    /**
+     * Like {@link #every(F)}, but with a predicate that returns an unboxed <code>boolean</code>.
+     */
+    public final boolean everyByPredicate(@Nonnull Predicate<A> f) {
+        return this.findIndexByPredicate(f.negate()).isNothing();
+    }
+
+    /**
+     * Like {@link #foldLeft}, but with an unboxed <code>int</code> accumulator.
+     *
+     * @param f    The accumulator function.
+     * @param init The initial value.
+     * @return The final value of the accumulator.
+     */
+    public final int foldLeftInt(@Nonnull IntObjF2<? super A> f, int init) {
+        ImmutableList<A> self = this;
+        while (self instanceof NonEmptyImmutableList) {
+            NonEmptyImmutableList<A> selfNel = (NonEmptyImmutableList<A>) self;
+            init = f.apply(init, selfNel.head);
+            self = selfNel.tail;
+        }
+        return init;
+    }
+
+    /**
+     * @param f Maps each element to the <code>int</code> to add.
+     * @return The sum of <code>f</code> over the elements of the list.
+     */
+    public final int sumInt(@Nonnull ToIntF<? super A> f) {
+        int sum = 0;
+        ImmutableList<A> self = this;
+        while (self instanceof NonEmptyImmutableList) {
+            NonEmptyImmutableList<A> selfNel = (NonEmptyImmutableList<A>) self;
+            sum += f.apply(selfNel.head);
+            self = selfNel.tail;
+        }
+        return sum;
+    }
+
     /**
      * Run <code>f</code> on each element of the list and return the result immediately if it is a
      * <code>Maybe.of</code>. Other wise return <code>Maybe.empty()</code>
@@ -849,6 +1006,48 @@ public abstract class ImmutableList<A> implements Iterable<A> {
     @Override
     public abstract boolean equals(Object o);
 
+    /**
+     * Groups the elements by the key <code>f</code> computes for them, in one pass. Within a group,
+     * elements keep their order in this list. {@link MultiHashTable#toHashTable()} returns the
+     * groups as a plain {@link HashTable} of lists without copying them.
+     */
+    @Nonnull
+    public final <K> MultiHashTable<K, A> groupBy(@Nonnull F<A, K> f) {
+        return Grouping.groupBy(this, f);
+    }
+
+    @Nonnull
+    public final <K> MultiHashTable<K, A> groupBy(@Nonnull Hasher<K> hasher, @Nonnull F<A, K> f) {
+        return Grouping.groupBy(this, hasher, f);
+    }
+
+    /**
+     * Counts the elements for each key <code>f</code> computes, in one pass.
+     */
+    @Nonnull
+    public final <K> HashTable<K, Integer> countBy(@Nonnull F<A, K> f) {
+        return Grouping.countBy(this, f);
+    }
+
+    @Nonnull
+    public final <K> HashTable<K, Integer> countBy(@Nonnull Hasher<K> hasher, @Nonnull F<A, K> f) {
+        return Grouping.countBy(this, hasher, f);
+    }
+
+    /**
+     * Maps each key <code>f</code> computes to the element it was computed from. If several
+     * elements have the same key, the last one wins.
+     */
+    @Nonnull
+    public final <K> HashTable<K, A> indexBy(@Nonnull F<A, K> f) {
+        return Grouping.indexBy(this, f);
+    }
+
+    @Nonnull
+    public final <K> HashTable<K, A> indexBy(@Nonnull Hasher<K> hasher, @Nonnull F<A, K> f) {
+        return Grouping.indexBy(this, hasher, f);
+    }
+
     @Nonnull
     public Pair<ImmutableList<A>, ImmutableList<A>> partition(@Nonnull Predicate<A> predicate) {
         @SuppressWarnings("unchecked")
@@ -869,30 +1068,268 @@ public abstract class ImmutableList<A> implements Iterable<A> {
         return Pair.of(fromBounded(result, 0, l[0]), right);
     }
 
+    /**
+     * Passes the elements to <code>f</code> in consecutive chunks of <code>size</code>, in order.
+     * <p> The same array is filled and passed for every full chunk, so <code>f</code> must copy
+     * anything it wants to keep. The last chunk, if shorter, is passed in a new array of its exact
+     * length.
+     *
+     * @param size The number of elements per chunk.
+     * @param f    Receives each chunk.
+     */
+    public final void forEachChunk(int size, @Nonnull Consumer<Object[]> f) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("ImmutableList::forEachChunk requires a positive size.");
+        }
+        Object[] chunk = new Object[Math.min(size, this.length)];
+        int filled = 0;
+        ImmutableList<A> list = this;
+        while (list instanceof NonEmptyImmutableList) {
+            chunk[filled++] = ((NonEmptyImmutableList<A>) list).head;
+            if (filled == chunk.length) {
+                f.accept(chunk);
+                filled = 0;
+            }
+            list = ((NonEmptyImmutableList<A>) list).tail;
+        }
+        if (filled > 0) {
+            f.accept(Arrays.copyOf(chunk, filled));
+        }
+    }
+
+    /**
+     * Splits the list into consecutive lists of <code>size</code> elements. The last one may be
+     * shorter.
+     *
+     * @param size The number of elements per group.
+     * @return The groups, in order.
+     */
+    @Nonnull
+    public final ImmutableList<ImmutableList<A>> grouped(int size) {
+        return this.sliding(size, size);
+    }
+
+    /**
+     * Returns the windows of <code>size</code> consecutive elements that start every
+     * <code>step</code> elements. The last window may be shorter if the elements run out; windows
+     * after the one that reaches the end of the list are not produced.
+     *
+     * @param size The number of elements per window.
+     * @param step The distance between the starts of consecutive windows.
+     * @return The windows, in order.
+     */
+    @SuppressWarnings("unchecked")
+    @Nonnull
+    public final ImmutableList<ImmutableList<A>> sliding(int size, int step) {
+        if (size <= 0 || step <= 0) {
+            throw new IllegalArgumentException("ImmutableList::sliding requires a positive size and step.");
+        }
+        A[] array = this.toArray((A[]) new Object[this.length]);
+        Builder<ImmutableList<A>> windows = new Builder<>();
+        for (int start = 0; start < array.length; start += step) {
+            int end = Math.min(start + size, array.length);
+            windows.add(fromBounded(array, start, end));
+            if (end == array.length) {
+                break;
+            }
+        }
+        return windows.build();
+    }
+
+    /**
+     * Sorts the list with a stable merge sort. The elements are copied into a single scratch array,
+     * sorted in place and consed back; a list that is already sorted is returned as is.
+     *
+     * @param comparator The ordering of the elements.
+     * @return The sorted list.
+     */
+    @SuppressWarnings("unchecked")
+    @Nonnull
+    public final ImmutableList<A> sort(@Nonnull Comparator<? super A> comparator) {
+        if (this.isSorted(comparator)) {
+            return this;
+        }
+        A[] array = this.toArray((A[]) new Object[this.length]);
+        Arrays.sort(array, comparator);
+        return fromBounded(array, 0, array.length);
+    }
+
+    /**
+     * Sorts the list by the natural ordering of a key. Like {@link #sort}, the sort is stable.
+     *
+     * @param f   Extracts the key from an element. It is called on every comparison.
+     * @param <K> The type of the keys.
+     * @return The sorted list.
+     */
+    @Nonnull
+    public final <K extends Comparable<? super K>> ImmutableList<A> sortBy(@Nonnull F<A, K> f) {
+        return this.sort((a, b) -> f.apply(a).compareTo(f.apply(b)));
+    }
+
+    /**
+     * Like {@link #sort}, but sorts the scratch array with {@link Arrays#parallelSort}, which is
+     * worth it for large lists with expensive comparators.
+     *
+     * @param comparator The ordering of the elements.
+     * @return The sorted list.
+     */
+    @SuppressWarnings("unchecked")
+    @Nonnull
+    public final ImmutableList<A> parallelSort(@Nonnull Comparator<? super A> comparator) {
+        if (this.isSorted(comparator)) {
+            return this;
+        }
+        A[] array = this.toArray((A[]) new Object[this.length]);
+        Arrays.parallelSort(array, comparator);
+        return fromBounded(array, 0, array.length);
+    }
+
+    /**
+     * Like {@link #map}, but applies <code>f</code> to the elements in parallel in the common
+     * fork-join pool. Worth it when <code>f</code> is expensive; the order of the result is the
+     * same as with {@link #map}.
+     *
+     * @param f   The function to apply. It may be called from several threads at once.
+     * @param <B> The type of the new {@link ImmutableList}.
+     * @return The new {@link ImmutableList} containing the result.
+     */
+    @Nonnull
+    public final <B> ImmutableList<B> parallelMap(@Nonnull F<A, B> f) {
+        return this.parallelMap(f, ForkJoinPool.commonPool(), defaultGrainSize(this.length, ForkJoinPool.commonPool()));
+    }
+
+    /**
+     * Like {@link #parallelMap(F)}, in the given pool.
+     *
+     * @param f         The function to apply. It may be called from several threads at once.
+     * @param pool      The pool to run in.
+     * @param grainSize The number of consecutive elements below which a task is not split further.
+     * @param <B>       The type of the new {@link ImmutableList}.
+     * @return The new {@link ImmutableList} containing the result.
+     */
+    @SuppressWarnings("unchecked")
+    @Nonnull
+    public final <B> ImmutableList<B> parallelMap(@Nonnull F<A, B> f, @Nonnull ForkJoinPool pool, int grainSize) {
+        A[] source = this.toArray((A[]) new Object[this.length]);
+        B[] result = (B[]) new Object[this.length];
+        pool.invoke(new IndexRangeTask(0, source.length, grainSize, i -> result[i] = f.apply(source[i])));
+        return fromBounded(result, 0, result.length);
+    }
+
+    /**
+     * Like {@link #filter}, but tests the elements in parallel in the common fork-join pool. The
+     * order of the result is the same as with {@link #filter}.
+     *
+     * @param f The predicate. It may be called from several threads at once.
+     * @return A new list of elements that satisfies the predicate.
+     */
+    @Nonnull
+    public final ImmutableList<A> parallelFilter(@Nonnull F<A, Boolean> f) {
+        return this.parallelFilter(f, ForkJoinPool.commonPool(), defaultGrainSize(this.length, ForkJoinPool.commonPool()));
+    }
+
+    /**
+     * Like {@link #parallelFilter(F)}, in the given pool.
+     *
+     * @param f         The predicate. It may be called from several threads at once.
+     * @param pool      The pool to run in.
+     * @param grainSize The number of consecutive elements below which a task is not split further.
+     * @return A new list of elements that satisfies the predicate.
+     */
+    @SuppressWarnings("unchecked")
+    @Nonnull
+    public final ImmutableList<A> parallelFilter(@Nonnull F<A, Boolean> f, @Nonnull ForkJoinPool pool, int grainSize) {
+        A[] source = this.toArray((A[]) new Object[this.length]);
+        boolean[] keep = new boolean[this.length];
+        pool.invoke(new IndexRangeTask(0, source.length, grainSize, i -> keep[i] = f.apply(source[i])));
+        int j = 0;
+        for (int i = 0; i < source.length; i++) {
+            if (keep[i]) {
+                source[j++] = source[i];
+            }
+        }
+        return j == this.length ? this : fromBounded(source, 0, j);
+    }
+
+    /**
+     * Like {@link #flatMap}, but applies <code>f</code> to the elements in parallel in the common
+     * fork-join pool. The order of the result is the same as with {@link #flatMap}.
+     *
+     * @param f   The function to expand the list element. It may be called from several threads at
+     *            once.
+     * @param <B> The type of the result list.
+     * @return The result list.
+     */
+    @Nonnull
+    public final <B> ImmutableList<B> parallelFlatMap(@Nonnull F<A, ImmutableList<B>> f) {
+        return this.parallelFlatMap(f, ForkJoinPool.commonPool(), defaultGrainSize(this.length, ForkJoinPool.commonPool()));
+    }
+
+    /**
+     * Like {@link #parallelFlatMap(F)}, in the given pool.
+     *
+     * @param f         The function to expand the list element. It may be called from several
+     *                  threads at once.
+     * @param pool      The pool to run in.
+     * @param grainSize The number of consecutive elements below which a task is not split further.
+     * @param <B>       The type of the result list.
+     * @return The result list.
+     */
+    @SuppressWarnings("unchecked")
+    @Nonnull
+    public final <B> ImmutableList<B> parallelFlatMap(@Nonnull F<A, ImmutableList<B>> f, @Nonnull ForkJoinPool pool, int grainSize) {
+        A[] source = this.toArray((A[]) new Object[this.length]);
+        @SuppressWarnings("rawtypes")
+        ImmutableList<B>[] buckets = (ImmutableList<B>[]) new ImmutableList[this.length];
+        pool.invoke(new IndexRangeTask(0, source.length, grainSize, i -> buckets[i] = f.apply(source[i])));
+        ImmutableList<B> result = empty();
+        for (int i = buckets.length - 1; i >= 0; i--) {
+            result = buckets[i].append(result);
+        }
+        return result;
+    }
+
+    // Enough tasks for work stealing to even out elements that take different amounts of time.
+    static int defaultGrainSize(int length, @Nonnull ForkJoinPool pool) {
+        return Math.max(1, length / (pool.getParallelism() * 8));
+    }
+
+    private boolean isSorted(@Nonnull Comparator<? super A> comparator) {
+        if (this.length < 2) {
+            return true;
+        }
+        NonEmptyImmutableList<A> list = (NonEmptyImmutableList<A>) this;
+        while (list.tail instanceof NonEmptyImmutableList) {
+            NonEmptyImmutableList<A> next = (NonEmptyImmutableList<A>) list.tail;
+            if (comparator.compare(list.head, next.head) > 0) {
+                return false;
+            }
+            list = next;
+        }
+        return true;
+    }
+
     @Nonnull
     public static <T> Collector<T, ?, ImmutableList<T>> collector() {
-        return new Collector<T, ArrayList<T>, ImmutableList<T>>() {
+        return new Collector<T, Builder<T>, ImmutableList<T>>() {
             @Override
-            public Supplier<ArrayList<T>> supplier() {
-                return ArrayList::new;
+            public Supplier<Builder<T>> supplier() {
+                return Builder::new;
             }
 
             @Override
-            public BiConsumer<ArrayList<T>, T> accumulator() {
-                return ArrayList::add;
+            public BiConsumer<Builder<T>, T> accumulator() {
+                return Builder::add;
             }
 
             @Override
-            public BinaryOperator<ArrayList<T>> combiner() {
-                return (left, right) -> {
-                    left.addAll(right);
-                    return left;
-                };
+            public BinaryOperator<Builder<T>> combiner() {
+                return Builder::addAllFrom;
             }
 
             @Override
-            public Function<ArrayList<T>, ImmutableList<T>> finisher() {
-                return ImmutableList::from;
+            public Function<Builder<T>, ImmutableList<T>> finisher() {
+                return Builder::build;
             }
 
             @Override
@@ -901,5 +1338,203 @@ public abstract class ImmutableList<A> implements Iterable<A> {
             }
         };
     }
+
+    @Nonnull
+    public static <A> Builder<A> builder() {
+        return new Builder<>();
+    }
+
+    /**
+     * Accumulates elements in order to build an {@link ImmutableList} from front to back. <p>
+     * Elements are buffered in chunks that double in size, so adding an element is O(1) and never
+     * copies what has been added before; {@link #build} conses the list once, from the last element
+     * to the first. The cells of a cons list are immutable and each records the length of its
+     * tail, so the list cannot be extended in place. <p> A builder is not thread-safe. It can keep
+     * being used after {@link #build}, which does not change its contents.
+     *
+     * @param <A> The type of the elements.
+     */
+    public static final class Builder<A> {
+        private static final int FIRST_CHUNK = 16;
+        private static final int MAX_CHUNK = 1 << 14;
+
+        // chunks that are full, in order
+        @Nonnull
+        private final ArrayList<Object[]> full = new ArrayList<>();
+        @Nonnull
+        private Object[] current = new Object[FIRST_CHUNK];
+        private int currentSize = 0;
+        private int length = 0;
+
+        public Builder() {
+        }
+
+        @Nonnull
+        public Builder<A> add(@Nonnull A a) {
+            if (this.currentSize == this.current.length) {
+                this.full.add(this.current);
+                this.current = new Object[Math.min(MAX_CHUNK, this.current.length * 2)];
+                this.currentSize = 0;
+            }
+            this.current[this.currentSize++] = a;
+            this.length++;
+            return this;
+        }
+
+        @Nonnull
+        public Builder<A> addAll(@Nonnull Iterable<? extends A> as) {
+            if (as instanceof ImmutableList) {
+                ImmutableList<? extends A> list = (ImmutableList<? extends A>) as;
+                while (list instanceof NonEmptyImmutableList) {
+                    this.add(((NonEmptyImmutableList<? extends A>) list).head);
+                    list = ((NonEmptyImmutableList<? extends A>) list).tail;
+                }
+            } else {
+                for (A a : as) {
+                    this.add(a);
+                }
+            }
+            return this;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Nonnull
+        private Builder<A> addAllFrom(@Nonnull Builder<A> other) {
+            for (Object[] chunk : other.full) {
+                for (Object a : chunk) {
+                    this.add((A) a);
+                }
+            }
+            for (int i = 0; i < other.currentSize; i++) {
+                this.add((A) other.current[i]);
+            }
+            return this;
+        }
+
+        public int length() {
+            return this.length;
+        }
+
+        @Nonnull
+        public ImmutableList<A> build() {
+            return this.buildOnto(empty());
+        }
+
+        /**
+         * Builds the list of the added elements followed by <code>tail</code>, which is shared
+         * rather than copied.
+         *
+         * @param tail The list to put after the added elements.
+         * @return The built list.
+         */
+        @SuppressWarnings("unchecked")
+        @Nonnull
+        public ImmutableList<A> buildOnto(@Nonnull ImmutableList<A> tail) {
+            ImmutableList<A> list = tail;
+            for (int i = this.currentSize - 1; i >= 0; i--) {
+                list = cons((A) this.current[i], list);
+            }
+            for (int c = this.full.size() - 1; c >= 0; c--) {
+                Object[] chunk = this.full.get(c);
+                for (int i = chunk.length - 1; i >= 0; i--) {
+                    list = cons((A) chunk[i], list);
+                }
+            }
+            return list;
+        }
+    }
+
+    // Runs body on every index in [from, to), splitting the range in halves down to grainSize.
+    @SuppressWarnings("serial")
+    private final static class IndexRangeTask extends RecursiveAction {
+        private final int from;
+        private final int to;
+        private final int grainSize;
+        @Nonnull
+        private final IntConsumer body;
+
+        private IndexRangeTask(int from, int to, int grainSize, @Nonnull IntConsumer body) {
+            this.from = from;
+            this.to = to;
+            this.grainSize = grainSize;
+            this.body = body;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.to - this.from <= Math.max(1, this.grainSize)) {
+                for (int i = this.from; i < this.to; i++) {
+                    this.body.accept(i);
+                }
+                return;
+            }
+            int mid = (this.from + this.to) >>> 1;
+            invokeAll(new IndexRangeTask(this.from, mid, this.grainSize, this.body), new IndexRangeTask(mid, this.to, this.grainSize, this.body));
+        }
+    }
+
+    private final static class ImmutableListSpliterator<A> implements Spliterator<A> {
+        @Nonnull
+        private ImmutableList<A> list;
+        // the number of elements of `list` covered by this spliterator; `list` may be longer
+        private int size;
+
+        private ImmutableListSpliterator(@Nonnull ImmutableList<A> list, int size) {
+            this.list = list;
+            this.size = size;
+        }
+
+        @Override
+        public boolean tryAdvance(@Nonnull Consumer<? super A> action) {
+            if (this.size == 0) {
+                return false;
+            }
+            NonEmptyImmutableList<A> nel = (NonEmptyImmutableList<A>) this.list;
+            this.list = nel.tail;
+            this.size--;
+            action.accept(nel.head);
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(@Nonnull Consumer<? super A> action) {
+            ImmutableList<A> list = this.list;
+            for (int i = this.size; i > 0; i--) {
+                NonEmptyImmutableList<A> nel = (NonEmptyImmutableList<A>) list;
+                action.accept(nel.head);
+                list = nel.tail;
+            }
+            this.list = list;
+            this.size = 0;
+        }
+
+        @Nullable
+        @Override
+        public Spliterator<A> trySplit() {
+            if (this.size < 2) {
+                return null;
+            }
+            // Hand off the first half and walk this spliterator forward to the midpoint.
+            int half = this.size >>> 1;
+            ImmutableListSpliterator<A> prefix = new ImmutableListSpliterator<>(this.list, half);
+            ImmutableList<A> list = this.list;
+            for (int i = 0; i < half; i++) {
+                list = ((NonEmptyImmutableList<A>) list).tail;
+            }
+            this.list = list;
+            this.size -= half;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return this.size;
+        }
+
+        @Override
+        public int characteristics() {
+            return IMMUTABLE | ORDERED | SIZED | SUBSIZED | NONNULL;
+        }
+    }
 }
 
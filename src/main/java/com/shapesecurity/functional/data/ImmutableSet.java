@@ -254,6 +254,51 @@ public class ImmutableSet<T> implements Iterable<T> {
         return StreamSupport.stream(this.spliterator(), false);
     }
 
+    /**
+     * As {@link ImmutableList#groupBy(F)}; the order within a group follows the iteration order
+     * of this set.
+     */
+    @Nonnull
+    public final <K> MultiHashTable<K, T> groupBy(@Nonnull F<T, K> f) {
+        return Grouping.groupBy(this, f);
+    }
+
+    @Nonnull
+    public final <K> MultiHashTable<K, T> groupBy(@Nonnull Hasher<K> hasher, @Nonnull F<T, K> f) {
+        return Grouping.groupBy(this, hasher, f);
+    }
+
+    /**
+     * As {@link ImmutableList#countBy(F)}.
+     */
+    @Nonnull
+    public final <K> HashTable<K, Integer> countBy(@Nonnull F<T, K> f) {
+        return Grouping.countBy(this, f);
+    }
+
+    @Nonnull
+    public final <K> HashTable<K, Integer> countBy(@Nonnull Hasher<K> hasher, @Nonnull F<T, K> f) {
+        return Grouping.countBy(this, hasher, f);
+    }
+
+    /**
+     * As {@link ImmutableList#indexBy(F)}; the last element in iteration order wins.
+     */
+    @Nonnull
+    public final <K> HashTable<K, T> indexBy(@Nonnull F<T, K> f) {
+        return Grouping.indexBy(this, f);
+    }
+
+    @Nonnull
+    public final <K> HashTable<K, T> indexBy(@Nonnull Hasher<K> hasher, @Nonnull F<T, K> f) {
+        return Grouping.indexBy(this, hasher, f);
+    }
+
+    @Nonnull
+    public final View<T> view() {
+        return View.from(this);
+    }
+
     @Nonnull
     public static <T> Collector<T, ?, ImmutableSet<T>> collector(@Nonnull Hasher<T> hasher) {
         // we use a list for state because java doesn't support our Hasher type
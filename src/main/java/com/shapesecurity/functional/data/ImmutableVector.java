@@ -0,0 +1,462 @@
+/*
+ * Copyright 2014 Shape Security, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.shapesecurity.functional.data;
+
+import com.shapesecurity.functional.F;
+import com.shapesecurity.functional.F2;
+import org.jetbrains.annotations.Debug;
+
+import javax.annotation.CheckReturnValue;
+import javax.annotation.Nonnull;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
+/**
+ * An immutable random-access list implemented as a bit-partitioned trie with a branching factor of 32.
+ * <p>
+ * The last (up to) 32 elements are kept in a separate tail array, so {@link #append1} only touches the
+ * tree once every 32 elements. {@link #index} and {@link #update} walk at most
+ * <code>log32(length)</code> levels of the trie, which is at most 7 for any <code>int</code> length.
+ * <p>
+ * Use this instead of {@link ImmutableList} when elements are accessed or replaced by position, and
+ * instead of {@link ConcatList} when elements are mostly appended one at a time.
+ *
+ * @param <A> The super type of all the elements.
+ */
+@CheckReturnValue
+@Debug.Renderer(
+    text = "\"size = \" + this.length",
+    childrenArray = "this.toObjectArray()",
+    hasChildren = "this.length > 0"
+)
+public final class ImmutableVector<A> implements Iterable<A> {
+    private static final int BITS = 5;
+    private static final int WIDTH = 1 << BITS;
+    private static final int MASK = WIDTH - 1;
+
+    private static final Object[] EMPTY_NODE = new Object[WIDTH];
+    private static final ImmutableVector<Object> EMPTY = new ImmutableVector<>(0, BITS, EMPTY_NODE, new Object[0]);
+
+    /**
+     * The length of the vector.
+     */
+    public final int length;
+
+    // the number of bits the index is shifted by at the root level
+    private final int shift;
+    @Nonnull
+    private final Object[] root;
+    @Nonnull
+    private final Object[] tail;
+
+    // 0 means "not yet computed", unless hashIsZero is set, as in ImmutableList. No synchronization
+    // is needed because int writes are atomic.
+    private int hashCode = 0;
+    // set when the computed hash code is 0, so that it is not mistaken for one not yet computed
+    private boolean hashIsZero = false;
+
+    private ImmutableVector(int length, int shift, @Nonnull Object[] root, @Nonnull Object[] tail) {
+        this.length = length;
+        this.shift = shift;
+        this.root = root;
+        this.tail = tail;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Nonnull
+    public static <A> ImmutableVector<A> empty() {
+        return (ImmutableVector<A>) EMPTY;
+    }
+
+    @Nonnull
+    @SafeVarargs
+    public static <A> ImmutableVector<A> of(@Nonnull A... elements) {
+        Builder<A> builder = new Builder<>();
+        for (A element : elements) {
+            builder.add(element);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Creates an {@link ImmutableVector} from an {@link Iterable}, such as an {@link ImmutableList} or a
+     * {@link ConcatList}, in linear time.
+     *
+     * @param elements The elements of the vector, in order.
+     * @param <A>      The type of the elements.
+     * @return a new {@link ImmutableVector} containing all the elements.
+     */
+    @Nonnull
+    public static <A> ImmutableVector<A> from(@Nonnull Iterable<A> elements) {
+        Builder<A> builder = new Builder<>();
+        elements.forEach(builder::add);
+        return builder.build();
+    }
+
+    public boolean isEmpty() {
+        return this.length == 0;
+    }
+
+    private int tailOffset() {
+        return this.length < WIDTH ? 0 : ((this.length - 1) >>> BITS) << BITS;
+    }
+
+    // Returns the leaf array that contains the element at the index. The index must be in range.
+    @Nonnull
+    private Object[] leafFor(int index) {
+        if (index >= this.tailOffset()) {
+            return this.tail;
+        }
+        Object[] node = this.root;
+        for (int level = this.shift; level > 0; level -= BITS) {
+            node = (Object[]) node[(index >>> level) & MASK];
+        }
+        return node;
+    }
+
+    /**
+     * Get the <code>index</code>th element of the vector in <code>O(log32(n))</code> time.
+     *
+     * @param index The index.
+     * @return <code>Maybe.of(found element)</code> if the element can be retrieved; or
+     * <code>Maybe.empty()</code> if index out of range.
+     */
+    @SuppressWarnings("unchecked")
+    @Nonnull
+    public Maybe<A> index(int index) {
+        if (index < 0 || index >= this.length) {
+            return Maybe.empty();
+        }
+        return Maybe.of((A) this.leafFor(index)[index & MASK]);
+    }
+
+    /**
+     * Replaces the <code>index</code>th element of the vector, copying only the path from the root
+     * to the affected leaf.
+     *
+     * @param index   The index.
+     * @param element The new element.
+     * @return <code>Maybe.of(new vector)</code> if the index is in range; or
+     * <code>Maybe.empty()</code> otherwise.
+     */
+    @Nonnull
+    public Maybe<ImmutableVector<A>> update(int index, @Nonnull A element) {
+        if (index < 0 || index >= this.length) {
+            return Maybe.empty();
+        }
+        if (index >= this.tailOffset()) {
+            Object[] newTail = this.tail.clone();
+            newTail[index & MASK] = element;
+            return Maybe.of(new ImmutableVector<>(this.length, this.shift, this.root, newTail));
+        }
+        return Maybe.of(new ImmutableVector<>(this.length, this.shift, updatePath(this.shift, this.root, index, element), this.tail));
+    }
+
+    @Nonnull
+    private static Object[] updatePath(int level, @Nonnull Object[] node, int index, @Nonnull Object element) {
+        Object[] copy = node.clone();
+        if (level == 0) {
+            copy[index & MASK] = element;
+        } else {
+            int sub = (index >>> level) & MASK;
+            copy[sub] = updatePath(level - BITS, (Object[]) node[sub], index, element);
+        }
+        return copy;
+    }
+
+    /**
+     * Appends an element to the end of the vector in amortized constant time.
+     *
+     * @param element The element to append.
+     * @return A vector with <code>element</code> following all the elements of <code>this</code>.
+     */
+    @Nonnull
+    public ImmutableVector<A> append1(@Nonnull A element) {
+        int tailLength = this.length - this.tailOffset();
+        if (tailLength < WIDTH) {
+            Object[] newTail = new Object[tailLength + 1];
+            System.arraycopy(this.tail, 0, newTail, 0, tailLength);
+            newTail[tailLength] = element;
+            return new ImmutableVector<>(this.length + 1, this.shift, this.root, newTail);
+        }
+        // the tail is full: push it into the tree
+        Object[] newRoot;
+        int newShift = this.shift;
+        if ((this.length >>> BITS) > (1 << this.shift)) {
+            newRoot = new Object[WIDTH];
+            newRoot[0] = this.root;
+            newRoot[1] = newPath(this.shift, this.tail);
+            newShift += BITS;
+        } else {
+            newRoot = pushTail(this.length, this.shift, this.root, this.tail);
+        }
+        return new ImmutableVector<>(this.length + 1, newShift, newRoot, new Object[]{ element });
+    }
+
+    @Nonnull
+    private static Object[] newPath(int level, @Nonnull Object[] node) {
+        if (level == 0) {
+            return node;
+        }
+        Object[] path = new Object[WIDTH];
+        path[0] = newPath(level - BITS, node);
+        return path;
+    }
+
+    @Nonnull
+    private static Object[] pushTail(int length, int level, @Nonnull Object[] parent, @Nonnull Object[] tailNode) {
+        int sub = ((length - 1) >>> level) & MASK;
+        Object[] copy = parent.clone();
+        if (level == BITS) {
+            copy[sub] = tailNode;
+        } else {
+            Object[] child = (Object[]) parent[sub];
+            copy[sub] = child == null ? newPath(level - BITS, tailNode) : pushTail(length, level - BITS, child, tailNode);
+        }
+        return copy;
+    }
+
+    /**
+     * Creates a vector with the content of the current vector followed by all the elements of an
+     * {@link Iterable}.
+     *
+     * @param elements The elements to append.
+     * @return The concatenation.
+     */
+    @Nonnull
+    public ImmutableVector<A> appendAll(@Nonnull Iterable<? extends A> elements) {
+        ImmutableVector<A> result = this;
+        for (A element : elements) {
+            result = result.append1(element);
+        }
+        return result;
+    }
+
+    @Override
+    public void forEach(@Nonnull Consumer<? super A> action) {
+        int tailOffset = this.tailOffset();
+        for (int i = 0; i < tailOffset; i += WIDTH) {
+            forEachInArray(this.leafFor(i), WIDTH, action);
+        }
+        forEachInArray(this.tail, this.length - tailOffset, action);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <A> void forEachInArray(@Nonnull Object[] array, int length, @Nonnull Consumer<? super A> action) {
+        for (int i = 0; i < length; i++) {
+            action.accept((A) array[i]);
+        }
+    }
+
+    @Nonnull
+    @Override
+    public Iterator<A> iterator() {
+        return new Iterator<A>() {
+            private int i = 0;
+            @Nonnull
+            private Object[] leaf = ImmutableVector.this.length == 0 ? EMPTY_NODE : ImmutableVector.this.leafFor(0);
+
+            @Override
+            public boolean hasNext() {
+                return this.i < ImmutableVector.this.length;
+            }
+
+            @SuppressWarnings("unchecked")
+            @Override
+            public A next() {
+                if (this.i >= ImmutableVector.this.length) {
+                    throw new NoSuchElementException();
+                }
+                if (this.i > 0 && (this.i & MASK) == 0) {
+                    this.leaf = ImmutableVector.this.leafFor(this.i);
+                }
+                return (A) this.leaf[this.i++ & MASK];
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    @Nonnull
+    public <B> B foldLeft(@Nonnull F2<B, ? super A, B> f, @Nonnull B init) {
+        int tailOffset = this.tailOffset();
+        for (int i = 0; i < tailOffset; i += WIDTH) {
+            Object[] leaf = this.leafFor(i);
+            for (int j = 0; j < WIDTH; j++) {
+                init = f.apply(init, (A) leaf[j]);
+            }
+        }
+        for (int j = 0; j < this.length - tailOffset; j++) {
+            init = f.apply(init, (A) this.tail[j]);
+        }
+        return init;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Nonnull
+    public <B> B foldRight(@Nonnull F2<? super A, B, B> f, @Nonnull B init) {
+        for (int i = this.length - 1; i >= 0; ) {
+            Object[] leaf = this.leafFor(i);
+            for (int j = i & MASK; j >= 0; j--, i--) {
+                init = f.apply((A) leaf[j], init);
+            }
+        }
+        return init;
+    }
+
+    @Nonnull
+    public <B> ImmutableVector<B> map(@Nonnull F<A, B> f) {
+        Builder<B> builder = new Builder<>();
+        this.forEach(a -> builder.add(f.apply(a)));
+        return builder.build();
+    }
+
+    /**
+     * Converts this vector into an {@link ImmutableList} in linear time.
+     *
+     * @return The list that contains the elements.
+     */
+    @SuppressWarnings("unchecked")
+    @Nonnull
+    public ImmutableList<A> toList() {
+        ImmutableList<A> list = ImmutableList.empty();
+        for (int i = this.length - 1; i >= 0; ) {
+            Object[] leaf = this.leafFor(i);
+            for (int j = i & MASK; j >= 0; j--, i--) {
+                list = list.cons((A) leaf[j]);
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Converts this vector into a balanced {@link ConcatList} in linear time.
+     *
+     * @return The list that contains the elements.
+     */
+    @SuppressWarnings("unchecked")
+    @Nonnull
+    public ConcatList<A> toConcatList() {
+        return ConcatList.of((A[]) this.toObjectArray());
+    }
+
+    // used for the debug renderer
+    @Nonnull
+    private Object[] toObjectArray() {
+        Object[] out = new Object[this.length];
+        int tailOffset = this.tailOffset();
+        for (int i = 0; i < tailOffset; i += WIDTH) {
+            System.arraycopy(this.leafFor(i), 0, out, i, WIDTH);
+        }
+        System.arraycopy(this.tail, 0, out, tailOffset, this.length - tailOffset);
+        return out;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ImmutableVector)) {
+            return false;
+        }
+        ImmutableVector<?> other = (ImmutableVector<?>) o;
+        if (this.length != other.length) {
+            return false;
+        }
+        for (int i = 0; i < this.length; i += WIDTH) {
+            Object[] l = this.leafFor(i);
+            Object[] r = other.leafFor(i);
+            if (l == r) {
+                continue;
+            }
+            for (int j = 0, n = Math.min(WIDTH, this.length - i); j < n; j++) {
+                if (!l[j].equals(r[j])) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        // Manually expanded thunk
+        int hashCodeCached = this.hashCode;
+        if (hashCodeCached == 0 && !this.hashIsZero) {
+            int hc = this.foldLeft(HashCodeBuilder::put, HashCodeBuilder.put(HashCodeBuilder.init(), "Vector"));
+            if (hc == 0) {
+                this.hashIsZero = true;
+            } else {
+                this.hashCode = hc;
+            }
+            return hc;
+        }
+        return hashCodeCached;
+    }
+
+    // Fills freshly allocated nodes in place; nothing is shared until build() returns.
+    private static final class Builder<A> {
+        private int length = 0;
+        private int shift = BITS;
+        @Nonnull
+        private Object[] root = new Object[WIDTH];
+        @Nonnull
+        private Object[] tail = new Object[WIDTH];
+
+        void add(@Nonnull A element) {
+            int tailLength = this.length & MASK;
+            if (tailLength == 0 && this.length > 0) {
+                // the tail is full: move it into the tree
+                if ((this.length >>> BITS) > (1 << this.shift)) {
+                    Object[] newRoot = new Object[WIDTH];
+                    newRoot[0] = this.root;
+                    newRoot[1] = newPath(this.shift, this.tail);
+                    this.root = newRoot;
+                    this.shift += BITS;
+                } else {
+                    this.pushTail(this.shift, this.root);
+                }
+                this.tail = new Object[WIDTH];
+            }
+            this.tail[tailLength] = element;
+            this.length++;
+        }
+
+        private void pushTail(int level, @Nonnull Object[] parent) {
+            int sub = ((this.length - 1) >>> level) & MASK;
+            if (level == BITS) {
+                parent[sub] = this.tail;
+            } else if (parent[sub] == null) {
+                parent[sub] = newPath(level - BITS, this.tail);
+            } else {
+                this.pushTail(level - BITS, (Object[]) parent[sub]);
+            }
+        }
+
+        @Nonnull
+        ImmutableVector<A> build() {
+            if (this.length == 0) {
+                return empty();
+            }
+            int tailLength = this.length - (this.length < WIDTH ? 0 : ((this.length - 1) >>> BITS) << BITS);
+            Object[] tail = tailLength == WIDTH ? this.tail : Arrays.copyOf(this.tail, tailLength);
+            return new ImmutableVector<>(this.length, this.shift, this.root, tail);
+        }
+    }
+}
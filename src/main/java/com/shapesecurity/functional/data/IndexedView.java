@@ -0,0 +1,209 @@
+/*
+ * Copyright 2014 Shape Security, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.shapesecurity.functional.data;
+
+import com.shapesecurity.functional.F2;
+
+import javax.annotation.CheckReturnValue;
+import javax.annotation.Nonnull;
+
+/**
+ * A {@link View} of a contiguous range of a list, in either direction, that also knows its length
+ * and supports random access. <p> {@link #reverse()} and {@link #slice} take constant time and copy
+ * nothing: they only adjust the range and direction in which the underlying list is read.
+ * Traversals, {@link #index} and {@link #foldRight} read the list in place, and the chained
+ * {@link View} operations are fused into the same pass. The elements are only copied when the view
+ * is materialized with {@link #toList()} or {@link #toConcatList()}. <p> Over a
+ * {@link ConcatList}, indexing takes logarithmic time and a traversal visits only the sub-trees
+ * within the range. Over an {@link ImmutableList}, indexing takes linear time, and a reversed
+ * traversal buffers the range in a temporary array, since a singly linked list can only be walked
+ * forwards. Obtain one with {@link ConcatList#reverseView()}, {@link ConcatList#sliceView},
+ * {@link ImmutableList#reverseView()} or {@link ImmutableList#sliceView}.
+ *
+ * @param <A> The type of the elements of the view.
+ */
+@CheckReturnValue
+public abstract class IndexedView<A> extends View<A> {
+    public final int length;
+
+    // package local
+    IndexedView(int length) {
+        this.length = length;
+    }
+
+    // 0 <= index < this.length
+    @Nonnull
+    abstract A get(int index);
+
+    // Pushes the elements in [from, to) to sink, last to first if reversed.
+    // 0 <= from <= to <= this.length
+    abstract boolean runRange(int from, int to, boolean reversed, @Nonnull Sink<? super A> sink);
+
+    @Override
+    final boolean run(@Nonnull Sink<? super A> sink) {
+        return this.runRange(0, this.length, false, sink);
+    }
+
+    @Nonnull
+    static <A> IndexedView<A> from(@Nonnull ConcatList<A> source) {
+        return new IndexedView<A>(source.length) {
+            @Nonnull
+            @Override
+            A get(int index) {
+                return source.index(index).fromJust();
+            }
+
+            @Override
+            boolean runRange(int from, int to, boolean reversed, @Nonnull Sink<? super A> sink) {
+                return ConcatList.runRange(source, from, to, reversed, sink);
+            }
+        };
+    }
+
+    @Nonnull
+    static <A> IndexedView<A> from(@Nonnull ImmutableList<A> source) {
+        return new IndexedView<A>(source.length) {
+            @Nonnull
+            @Override
+            A get(int index) {
+                return source.index(index).fromJust();
+            }
+
+            @SuppressWarnings("unchecked")
+            @Override
+            boolean runRange(int from, int to, boolean reversed, @Nonnull Sink<? super A> sink) {
+                ImmutableList<A> list = source;
+                for (int i = 0; i < from; i++) {
+                    list = ((NonEmptyImmutableList<A>) list).tail;
+                }
+                if (!reversed) {
+                    for (int i = from; i < to; i++) {
+                        NonEmptyImmutableList<A> nel = (NonEmptyImmutableList<A>) list;
+                        if (!sink.accept(nel.head)) {
+                            return false;
+                        }
+                        list = nel.tail;
+                    }
+                    return true;
+                }
+                Object[] buffer = new Object[to - from];
+                for (int i = 0; i < buffer.length; i++) {
+                    NonEmptyImmutableList<A> nel = (NonEmptyImmutableList<A>) list;
+                    buffer[i] = nel.head;
+                    list = nel.tail;
+                }
+                for (int i = buffer.length - 1; i >= 0; i--) {
+                    if (!sink.accept((A) buffer[i])) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+        };
+    }
+
+    public final boolean isEmpty() {
+        return this.length == 0;
+    }
+
+    @Nonnull
+    public final Maybe<A> index(int index) {
+        if (index < 0 || index >= this.length) {
+            return Maybe.empty();
+        }
+        return Maybe.of(this.get(index));
+    }
+
+    /**
+     * @return A view of the same elements in the opposite order. Takes constant time.
+     */
+    @Nonnull
+    public final IndexedView<A> reverse() {
+        if (this instanceof Reversed) {
+            return ((Reversed<A>) this).base;
+        }
+        return new Reversed<>(this);
+    }
+
+    /**
+     * @return A view of the elements from index <code>from</code> (inclusive) to <code>to</code>
+     * (exclusive). Takes constant time.
+     */
+    @Nonnull
+    public final Maybe<IndexedView<A>> slice(int from, int to) {
+        if (from < 0 || to > this.length || from > to) {
+            return Maybe.empty();
+        }
+        if (from == 0 && to == this.length) {
+            return Maybe.of(this);
+        }
+        if (this instanceof Sliced) {
+            Sliced<A> sliced = (Sliced<A>) this;
+            return Maybe.of(new Sliced<>(sliced.base, sliced.offset + from, to - from));
+        }
+        return Maybe.of(new Sliced<>(this, from, to - from));
+    }
+
+    @Nonnull
+    public final <B> B foldRight(@Nonnull F2<? super A, B, B> f, @Nonnull B init) {
+        return this.reverse().foldLeft((acc, a) -> f.apply(a, acc), init);
+    }
+
+    private final static class Reversed<A> extends IndexedView<A> {
+        @Nonnull
+        private final IndexedView<A> base;
+
+        private Reversed(@Nonnull IndexedView<A> base) {
+            super(base.length);
+            this.base = base;
+        }
+
+        @Nonnull
+        @Override
+        A get(int index) {
+            return this.base.get(this.length - 1 - index);
+        }
+
+        @Override
+        boolean runRange(int from, int to, boolean reversed, @Nonnull Sink<? super A> sink) {
+            return this.base.runRange(this.length - to, this.length - from, !reversed, sink);
+        }
+    }
+
+    private final static class Sliced<A> extends IndexedView<A> {
+        @Nonnull
+        private final IndexedView<A> base;
+        private final int offset;
+
+        private Sliced(@Nonnull IndexedView<A> base, int offset, int length) {
+            super(length);
+            this.base = base;
+            this.offset = offset;
+        }
+
+        @Nonnull
+        @Override
+        A get(int index) {
+            return this.base.get(this.offset + index);
+        }
+
+        @Override
+        boolean runRange(int from, int to, boolean reversed, @Nonnull Sink<? super A> sink) {
+            return this.base.runRange(this.offset + from, this.offset + to, reversed, sink);
+        }
+    }
+}
@@ -0,0 +1,383 @@
+/*
+ * Copyright 2014 Shape Security, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.shapesecurity.functional.data;
+
+import com.shapesecurity.functional.F;
+import com.shapesecurity.functional.F2;
+import com.shapesecurity.functional.Pair;
+import com.shapesecurity.functional.Thunk;
+
+import javax.annotation.CheckReturnValue;
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * A lazy, memoized singly linked list. <p> Each cell holds an evaluated head and a {@link Thunk}
+ * of the rest of the list, so the list can be infinite or backed by input that has not been read
+ * yet. A tail is computed at most once, the first time it is requested. <p> Cells only refer
+ * forwards, so a prefix that nobody refers to any more can be garbage collected while the rest
+ * of the list is being consumed. To process a long list in constant memory, do not hold on to its
+ * first cell: pass it straight to the static {@link #forEach(LazyList, Consumer)},
+ * {@link #foldLeft(LazyList, F2, Object)} or {@link #find(LazyList, F)}, which advance their own
+ * cursor, or keep only the current cell. The instance methods of the same names keep their
+ * receiver, the first cell, reachable until they return. <p> All operations are stack-safe regardless of the length of the
+ * list; operations that skip elements, such as {@link #filter} and {@link #drop}, do so in a loop.
+ *
+ * @param <A> The super type of all the elements.
+ */
+@CheckReturnValue
+public abstract class LazyList<A> implements Iterable<A> {
+    @SuppressWarnings("StaticInitializerReferencesSubClass")
+    private static final LazyList<Object> EMPTY = new Empty<>();
+
+    // package local
+    LazyList() {
+    }
+
+    @SuppressWarnings("unchecked")
+    @Nonnull
+    public static <A> LazyList<A> empty() {
+        return (LazyList<A>) EMPTY;
+    }
+
+    @Nonnull
+    public static <A> LazyList<A> cons(@Nonnull A head, @Nonnull Thunk<LazyList<A>> tail) {
+        return new Cons<>(head, tail);
+    }
+
+    @Nonnull
+    public static <A> LazyList<A> cons(@Nonnull A head, @Nonnull Supplier<LazyList<A>> tail) {
+        return new Cons<>(head, Thunk.from(tail));
+    }
+
+    /**
+     * Creates the infinite list <code>seed, f(seed), f(f(seed)), ...</code>.
+     */
+    @Nonnull
+    public static <A> LazyList<A> iterate(@Nonnull A seed, @Nonnull F<A, A> f) {
+        return new Cons<>(seed, Thunk.from(() -> iterate(f.apply(seed), f)));
+    }
+
+    /**
+     * Creates a list by repeatedly applying <code>f</code> to a state. Each application either
+     * produces the next element and the next state, or <code>Maybe.empty()</code> to end the list.
+     */
+    @Nonnull
+    public static <A, B> LazyList<A> unfold(@Nonnull B seed, @Nonnull F<B, Maybe<Pair<A, B>>> f) {
+        Maybe<Pair<A, B>> next = f.apply(seed);
+        if (next.isNothing()) {
+            return empty();
+        }
+        Pair<A, B> pair = next.fromJust();
+        return new Cons<>(pair.left, Thunk.from(() -> unfold(pair.right, f)));
+    }
+
+    /**
+     * Creates a list that reads <code>iterator</code> on demand. The iterator must not be used
+     * elsewhere afterwards.
+     */
+    @Nonnull
+    public static <A> LazyList<A> from(@Nonnull Iterator<A> iterator) {
+        if (!iterator.hasNext()) {
+            return empty();
+        }
+        A head = iterator.next();
+        return new Cons<>(head, Thunk.from(() -> from(iterator)));
+    }
+
+    @Nonnull
+    public static <A> LazyList<A> from(@Nonnull Iterable<A> iterable) {
+        return from(iterable.iterator());
+    }
+
+    public abstract boolean isEmpty();
+
+    @Nonnull
+    public abstract Maybe<A> maybeHead();
+
+    @Nonnull
+    public abstract Maybe<LazyList<A>> maybeTail();
+
+    @Nonnull
+    public abstract <B> LazyList<B> map(@Nonnull F<A, B> f);
+
+    @Nonnull
+    public final LazyList<A> filter(@Nonnull F<A, Boolean> f) {
+        LazyList<A> list = this;
+        while (list instanceof Cons) {
+            Cons<A> cons = (Cons<A>) list;
+            if (f.apply(cons.head)) {
+                return new Cons<>(cons.head, Thunk.from(() -> cons.tail.get().filter(f)));
+            }
+            list = cons.tail.get();
+        }
+        return empty();
+    }
+
+    @Nonnull
+    public abstract LazyList<A> takeWhile(@Nonnull F<A, Boolean> f);
+
+    @Nonnull
+    public abstract LazyList<A> take(int n);
+
+    @Nonnull
+    public final LazyList<A> drop(int n) {
+        LazyList<A> list = this;
+        while (n > 0 && list instanceof Cons) {
+            list = ((Cons<A>) list).tail.get();
+            n--;
+        }
+        return list;
+    }
+
+    @Nonnull
+    public abstract <B, C> LazyList<C> zipWith(@Nonnull F2<A, B, C> f, @Nonnull LazyList<B> list);
+
+    @Nonnull
+    public final <B> LazyList<Pair<A, B>> zip(@Nonnull LazyList<B> list) {
+        return this.zipWith(Pair::of, list);
+    }
+
+    @Nonnull
+    public final <B> B foldLeft(@Nonnull F2<B, ? super A, B> f, @Nonnull B init) {
+        return foldLeft(this, f, init);
+    }
+
+    @Nonnull
+    public final Maybe<A> find(@Nonnull F<A, Boolean> f) {
+        return find(this, f);
+    }
+
+    @Override
+    public final void forEach(@Nonnull Consumer<? super A> action) {
+        forEach(this, action);
+    }
+
+    // The static consumers below reuse their list parameter as the cursor, so no reference to a
+    // consumed cell is left in their frame.
+
+    /**
+     * Folds the list from the first element, letting each cell be garbage collected once it has
+     * been passed if the caller does not keep <code>list</code>.
+     */
+    @Nonnull
+    public static <A, B> B foldLeft(@Nonnull LazyList<A> list, @Nonnull F2<B, ? super A, B> f, @Nonnull B init) {
+        while (list instanceof Cons) {
+            Cons<A> cons = (Cons<A>) list;
+            init = f.apply(init, cons.head);
+            list = cons.tail.get();
+        }
+        return init;
+    }
+
+    /**
+     * Finds the first element satisfying <code>f</code>, letting each cell be garbage collected
+     * once it has been passed if the caller does not keep <code>list</code>.
+     */
+    @Nonnull
+    public static <A> Maybe<A> find(@Nonnull LazyList<A> list, @Nonnull F<A, Boolean> f) {
+        while (list instanceof Cons) {
+            Cons<A> cons = (Cons<A>) list;
+            if (f.apply(cons.head)) {
+                return Maybe.of(cons.head);
+            }
+            list = cons.tail.get();
+        }
+        return Maybe.empty();
+    }
+
+    /**
+     * Runs <code>action</code> on every element, letting each cell be garbage collected once it
+     * has been passed if the caller does not keep <code>list</code>.
+     */
+    public static <A> void forEach(@Nonnull LazyList<A> list, @Nonnull Consumer<? super A> action) {
+        while (list instanceof Cons) {
+            Cons<A> cons = (Cons<A>) list;
+            action.accept(cons.head);
+            list = cons.tail.get();
+        }
+    }
+
+    @Nonnull
+    @Override
+    public final Iterator<A> iterator() {
+        return new LazyListIterator<>(this);
+    }
+
+    /**
+     * Forces the whole list into an {@link ImmutableList}. Does not terminate on an infinite list.
+     */
+    @Nonnull
+    public final ImmutableList<A> toList() {
+        ArrayList<A> out = new ArrayList<>();
+        this.forEach(out::add);
+        return ImmutableList.from(out);
+    }
+
+    /**
+     * Forces the whole list into a {@link ConcatList}. Does not terminate on an infinite list.
+     */
+    @Nonnull
+    public final ConcatList<A> toConcatList() {
+        ArrayList<A> out = new ArrayList<>();
+        this.forEach(out::add);
+        return ConcatList.fromList(out);
+    }
+
+    // a static class so that it does not keep the first cell alive
+    private final static class LazyListIterator<A> implements Iterator<A> {
+        @Nonnull
+        private LazyList<A> curr;
+
+        private LazyListIterator(@Nonnull LazyList<A> list) {
+            this.curr = list;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.curr instanceof Cons;
+        }
+
+        @Override
+        public A next() {
+            if (!(this.curr instanceof Cons)) {
+                throw new NoSuchElementException();
+            }
+            Cons<A> cons = (Cons<A>) this.curr;
+            this.curr = cons.tail.get();
+            return cons.head;
+        }
+    }
+
+    private final static class Empty<A> extends LazyList<A> {
+        @Override
+        public boolean isEmpty() {
+            return true;
+        }
+
+        @Nonnull
+        @Override
+        public Maybe<A> maybeHead() {
+            return Maybe.empty();
+        }
+
+        @Nonnull
+        @Override
+        public Maybe<LazyList<A>> maybeTail() {
+            return Maybe.empty();
+        }
+
+        @Nonnull
+        @Override
+        public <B> LazyList<B> map(@Nonnull F<A, B> f) {
+            return empty();
+        }
+
+        @Nonnull
+        @Override
+        public LazyList<A> takeWhile(@Nonnull F<A, Boolean> f) {
+            return this;
+        }
+
+        @Nonnull
+        @Override
+        public LazyList<A> take(int n) {
+            return this;
+        }
+
+        @Nonnull
+        @Override
+        public <B, C> LazyList<C> zipWith(@Nonnull F2<A, B, C> f, @Nonnull LazyList<B> list) {
+            return empty();
+        }
+    }
+
+    private final static class Cons<A> extends LazyList<A> {
+        @Nonnull
+        final A head;
+        @Nonnull
+        final Thunk<LazyList<A>> tail;
+
+        private Cons(@Nonnull A head, @Nonnull Thunk<LazyList<A>> tail) {
+            this.head = head;
+            this.tail = tail;
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return false;
+        }
+
+        @Nonnull
+        @Override
+        public Maybe<A> maybeHead() {
+            return Maybe.of(this.head);
+        }
+
+        @Nonnull
+        @Override
+        public Maybe<LazyList<A>> maybeTail() {
+            return Maybe.of(this.tail.get());
+        }
+
+        @Nonnull
+        @Override
+        public <B> LazyList<B> map(@Nonnull F<A, B> f) {
+            Thunk<LazyList<A>> tail = this.tail;
+            return new Cons<>(f.apply(this.head), Thunk.from(() -> tail.get().map(f)));
+        }
+
+        @Nonnull
+        @Override
+        public LazyList<A> takeWhile(@Nonnull F<A, Boolean> f) {
+            if (!f.apply(this.head)) {
+                return empty();
+            }
+            Thunk<LazyList<A>> tail = this.tail;
+            return new Cons<>(this.head, Thunk.from(() -> tail.get().takeWhile(f)));
+        }
+
+        @Nonnull
+        @Override
+        public LazyList<A> take(int n) {
+            if (n <= 0) {
+                return empty();
+            }
+            if (n == 1) {
+                // do not force the tail
+                return new Cons<>(this.head, Thunk.constant(empty()));
+            }
+            Thunk<LazyList<A>> tail = this.tail;
+            return new Cons<>(this.head, Thunk.from(() -> tail.get().take(n - 1)));
+        }
+
+        @Nonnull
+        @Override
+        public <B, C> LazyList<C> zipWith(@Nonnull F2<A, B, C> f, @Nonnull LazyList<B> list) {
+            if (!(list instanceof Cons)) {
+                return empty();
+            }
+            Cons<B> other = (Cons<B>) list;
+            Thunk<LazyList<A>> tail = this.tail;
+            return new Cons<>(f.apply(this.head, other.head), Thunk.from(() -> tail.get().zipWith(f, other.tail.get())));
+        }
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2014 Shape Security, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.shapesecurity.functional.data;
+
+import javax.annotation.CheckReturnValue;
+import javax.annotation.Nonnull;
+
+/**
+ * A persistent cursor into an {@link ImmutableList}. <p> The elements before the cursor are kept
+ * nearest first, so that {@link #moveLeft}, {@link #moveRight}, {@link #replace}, {@link #insert}
+ * and {@link #delete} each take constant time, where the same edit on the list itself would copy
+ * every element before the position. {@link #toList()} rebuilds the list in time proportional to
+ * the position. <p> The focus is the element just after the cursor; at the end of the list there
+ * is none. Obtain one with {@link ImmutableList#zipper()}.
+ *
+ * @param <A> The type of the elements.
+ */
+@CheckReturnValue
+public final class ListZipper<A> {
+    // the elements before the cursor, nearest first
+    @Nonnull
+    private final ImmutableList<A> before;
+    // the elements after the cursor, the focus first
+    @Nonnull
+    private final ImmutableList<A> after;
+
+    private ListZipper(@Nonnull ImmutableList<A> before, @Nonnull ImmutableList<A> after) {
+        this.before = before;
+        this.after = after;
+    }
+
+    @Nonnull
+    public static <A> ListZipper<A> from(@Nonnull ImmutableList<A> list) {
+        return new ListZipper<>(ImmutableList.empty(), list);
+    }
+
+    /**
+     * @return The index of the focus in the list.
+     */
+    public int position() {
+        return this.before.length;
+    }
+
+    public boolean isAtStart() {
+        return this.before.isEmpty();
+    }
+
+    public boolean isAtEnd() {
+        return this.after.isEmpty();
+    }
+
+    @Nonnull
+    public Maybe<A> focus() {
+        return this.after.maybeHead();
+    }
+
+    @Nonnull
+    public Maybe<ListZipper<A>> moveLeft() {
+        if (this.before instanceof NonEmptyImmutableList) {
+            NonEmptyImmutableList<A> before = (NonEmptyImmutableList<A>) this.before;
+            return Maybe.of(new ListZipper<>(before.tail, this.after.cons(before.head)));
+        }
+        return Maybe.empty();
+    }
+
+    @Nonnull
+    public Maybe<ListZipper<A>> moveRight() {
+        if (this.after instanceof NonEmptyImmutableList) {
+            NonEmptyImmutableList<A> after = (NonEmptyImmutableList<A>) this.after;
+            return Maybe.of(new ListZipper<>(this.before.cons(after.head), after.tail));
+        }
+        return Maybe.empty();
+    }
+
+    /**
+     * Replaces the focus.
+     *
+     * @return <code>Maybe.empty()</code> at the end of the list.
+     */
+    @Nonnull
+    public Maybe<ListZipper<A>> replace(@Nonnull A element) {
+        if (this.after instanceof NonEmptyImmutableList) {
+            return Maybe.of(new ListZipper<>(this.before, ((NonEmptyImmutableList<A>) this.after).tail.cons(element)));
+        }
+        return Maybe.empty();
+    }
+
+    /**
+     * Inserts an element at the cursor, which becomes the focus.
+     */
+    @Nonnull
+    public ListZipper<A> insert(@Nonnull A element) {
+        return new ListZipper<>(this.before, this.after.cons(element));
+    }
+
+    /**
+     * Removes the focus. The element after it becomes the focus.
+     *
+     * @return <code>Maybe.empty()</code> at the end of the list.
+     */
+    @Nonnull
+    public Maybe<ListZipper<A>> delete() {
+        if (this.after instanceof NonEmptyImmutableList) {
+            return Maybe.of(new ListZipper<>(this.before, ((NonEmptyImmutableList<A>) this.after).tail));
+        }
+        return Maybe.empty();
+    }
+
+    /**
+     * @return The edited list. The elements after the cursor are shared, not copied.
+     */
+    @Nonnull
+    public ImmutableList<A> toList() {
+        return this.before.foldLeft((list, element) -> list.cons(element), this.after);
+    }
+}
@@ -20,6 +20,7 @@ import com.shapesecurity.functional.Effect;
 import com.shapesecurity.functional.F;
 import com.shapesecurity.functional.ThrowingSupplier;
 import com.shapesecurity.functional.Thunk;
+import com.shapesecurity.functional.ToIntF;
 
 import javax.annotation.CheckReturnValue;
 import javax.annotation.Nonnull;
@@ -145,6 +146,14 @@ public final class Maybe<A> implements Iterable<A> {
         return this.value == null ? def : f.apply(this.value);
     }
 
+    public int maybeInt(int def, @Nonnull ToIntF<A> f) {
+        return this.value == null ? def : f.apply(this.value);
+    }
+
+    public boolean existsByPredicate(@Nonnull Predicate<A> f) {
+        return this.value != null && f.test(this.value);
+    }
+
     public final void foreach(@Nonnull Effect<A> f) {
         this.map(f);
     }
@@ -20,6 +20,7 @@ import com.shapesecurity.functional.Unit;
 
 import javax.annotation.CheckReturnValue;
 import javax.annotation.Nonnull;
+import java.util.concurrent.ForkJoinPool;
 
 @CheckReturnValue
 public interface Monoid<T> extends Semigroup<T> {
@@ -27,12 +28,44 @@ public interface Monoid<T> extends Semigroup<T> {
     public static final IntegerAdditive INTEGER_ADDITIVE = new IntegerAdditive();
     public static final IntegerMultiplicative INTEGER_MULTIPLICATIVE = new IntegerMultiplicative();
     public static final StringConcat STRING_CONCAT = new StringConcat();
+    public static final RopeConcat ROPE_CONCAT = new RopeConcat();
     public static final BooleanOr BOOLEAN_OR = new BooleanOr();
     public static final BooleanAnd BOOLEAN_AND = new BooleanAnd();
 
     @Nonnull
     T identity();
 
+    /**
+     * Combines the elements in order; the identity if there are none.
+     */
+    @Nonnull
+    default T mconcat(@Nonnull Iterable<T> elements) {
+        T result = this.identity();
+        for (T element : elements) {
+            result = this.append(result, element);
+        }
+        return result;
+    }
+
+    @Nonnull
+    default T mconcat(@Nonnull ConcatList<T> list) {
+        return list.foldMap(this, x -> x);
+    }
+
+    /**
+     * Like {@link #mconcat(ConcatList)}, but combines the two sides of each fork of the list in
+     * parallel in the common fork-join pool.
+     */
+    @Nonnull
+    default T parallelMconcat(@Nonnull ConcatList<T> list) {
+        return list.parallelFoldMap(this, x -> x);
+    }
+
+    @Nonnull
+    default T parallelMconcat(@Nonnull ConcatList<T> list, @Nonnull ForkJoinPool pool, int grainSize) {
+        return list.parallelFoldMap(this, x -> x, pool, grainSize);
+    }
+
     public static class UnitIdentity extends Semigroup.UnitIdentity implements Monoid<Unit> {
         protected UnitIdentity() {
             super();
@@ -81,6 +114,27 @@ public interface Monoid<T> extends Semigroup<T> {
         }
     }
 
+    /**
+     * Concatenation of text without the quadratic copying of folding with {@link #STRING_CONCAT}.
+     */
+    public static class RopeConcat implements Monoid<Rope> {
+        protected RopeConcat() {
+            super();
+        }
+
+        @Nonnull
+        @Override
+        public final Rope append(Rope a, Rope b) {
+            return a.append(b);
+        }
+
+        @Nonnull
+        @Override
+        public final Rope identity() {
+            return Rope.empty();
+        }
+    }
+
     public static class BooleanOr extends Semigroup.BooleanOr implements Monoid<Boolean> {
         protected BooleanOr() {
             super();
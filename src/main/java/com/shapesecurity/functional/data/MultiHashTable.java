@@ -19,6 +19,12 @@ public class MultiHashTable<K, V> { // TODO should be elsewhere... and better
         this.data = data;
     }
 
+    // package local
+    @Nonnull
+    static <K, V> MultiHashTable<K, V> fromHashTable(@Nonnull HashTable<K, ImmutableList<V>> data) {
+        return new MultiHashTable<>(data);
+    }
+
     @Nonnull
     public static <K, V> MultiHashTable<K, V> emptyUsingEquality() {
         return new MultiHashTable<>(HashTable.emptyUsingEquality());
@@ -71,6 +77,12 @@ public class MultiHashTable<K, V> { // TODO should be elsewhere... and better
         return this.data.entries();
     }
 
+    // the lists themselves, without copying
+    @Nonnull
+    public HashTable<K, ImmutableList<V>> toHashTable() {
+        return this.data;
+    }
+
     // version: key is irrelevant
     @Nonnull
     public <B> HashTable<K, B> toHashTable(@Nonnull F<ImmutableList<V>, B> conversion) {
@@ -21,7 +21,6 @@ import com.shapesecurity.functional.F2;
 import com.shapesecurity.functional.Pair;
 
 import javax.annotation.Nonnull;
-import java.util.ArrayList;
 
 public final class NonEmptyImmutableList<T> extends ImmutableList<T> {
     public static final int HASH_START = HashCodeBuilder.put(HashCodeBuilder.init(), "List");
@@ -377,17 +376,16 @@ public final class NonEmptyImmutableList<T> extends ImmutableList<T> {
     @Nonnull
     @Override
     public <B> ImmutableList<B> flatMap(@Nonnull F<T, ImmutableList<B>> f) {
-        ArrayList<B> result = new ArrayList<>();
+        Builder<B> result = new Builder<>();
         ImmutableList<T> list = this;
+        ImmutableList<B> last = empty();
         while (list instanceof NonEmptyImmutableList) {
-            ImmutableList<B> bucket = f.apply(((NonEmptyImmutableList<T>) list).head);
-            while (bucket instanceof NonEmptyImmutableList) {
-                result.add(((NonEmptyImmutableList<B>) bucket).head);
-                bucket = ((NonEmptyImmutableList<B>) bucket).tail;
-            }
+            result.addAll(last);
+            last = f.apply(((NonEmptyImmutableList<T>) list).head);
             list = ((NonEmptyImmutableList<T>) list).tail;
         }
-        return from(result);
+        // the last bucket is shared
+        return result.buildOnto(last);
     }
 
     @Nonnull
@@ -461,9 +459,8 @@ public final class NonEmptyImmutableList<T> extends ImmutableList<T> {
         int stackIndex = 0;
         int hash = HASH_START;
         while (true) {
-            Integer cachedHashCode = list.getCachedHashCode();
-            if (cachedHashCode != null) {
-                hash = cachedHashCode;
+            if (list.hasCachedHashCode()) {
+                hash = list.getCachedHashCode();
                 break;
             }
             hashStack[stackIndex] = list.head.hashCode();
@@ -0,0 +1,511 @@
+/*
+ * Copyright 2014 Shape Security, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.shapesecurity.functional.data;
+
+import javax.annotation.CheckReturnValue;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+
+/**
+ * An immutable string represented as a height-balanced (AVL) tree of string fragments, in the
+ * shape of a {@link ConcatList}. <p> {@link #append} takes time logarithmic in the number of
+ * fragments and copies no characters except when it merges two short fragments, so building a
+ * large text by repeated appends is linear overall where repeated string concatenation is
+ * quadratic. {@link #charAt} and {@link #subSequence} take logarithmic time. {@link #toString()}
+ * and {@link #writeTo(Writer)} copy each character once. <p> Use {@link Monoid#ROPE_CONCAT} to fold
+ * fragments into a rope.
+ */
+@CheckReturnValue
+public abstract class Rope implements CharSequence {
+    // fragments up to this many characters are merged when they meet in append
+    private static final int MAX_MERGED_LEAF = 512;
+    private static final Rope EMPTY = new Leaf("");
+
+    private final int length;
+    // the number of nodes on the longest path from this node down to a leaf
+    final int height;
+    // 0 until computed; the hash of a fork is derived from the cached hashes of its children
+    private int hashCode = 0;
+    // set when the computed hash code is 0, so that it is not mistaken for one not yet computed
+    private boolean hashIsZero = false;
+    // 31 to the power of length, 0 until computed (it is odd, so never 0 once computed)
+    private int power = 0;
+
+    // package local
+    Rope(int length, int height) {
+        this.length = length;
+        this.height = height;
+    }
+
+    @Nonnull
+    public static Rope empty() {
+        return EMPTY;
+    }
+
+    @Nonnull
+    public static Rope of(@Nonnull CharSequence text) {
+        if (text instanceof Rope) {
+            return (Rope) text;
+        }
+        return text.length() == 0 ? EMPTY : new Leaf(text.toString());
+    }
+
+    @Override
+    public final int length() {
+        return this.length;
+    }
+
+    public final boolean isEmpty() {
+        return this.length == 0;
+    }
+
+    @Nonnull
+    public final Rope append(@Nonnull Rope rhs) {
+        if (rhs.length == 0) {
+            return this;
+        }
+        if (this.length == 0) {
+            return rhs;
+        }
+        return join(this, rhs);
+    }
+
+    @Nonnull
+    public final Rope append(@Nonnull CharSequence rhs) {
+        return this.append(Rope.of(rhs));
+    }
+
+    @Override
+    public final char charAt(int index) {
+        if (index < 0 || index >= this.length) {
+            throw new IndexOutOfBoundsException("index " + index + ", length " + this.length);
+        }
+        Rope rope = this;
+        while (rope instanceof Fork) {
+            Fork fork = (Fork) rope;
+            if (index < fork.left.length) {
+                rope = fork.left;
+            } else {
+                index -= fork.left.length;
+                rope = fork.right;
+            }
+        }
+        return ((Leaf) rope).text.charAt(index);
+    }
+
+    /**
+     * @return The characters in <code>[start, end)</code>, sharing the fragments that lie
+     * entirely within the range.
+     */
+    @Nonnull
+    @Override
+    public final Rope subSequence(int start, int end) {
+        if (start < 0 || end > this.length || start > end) {
+            throw new IndexOutOfBoundsException("start " + start + ", end " + end + ", length " + this.length);
+        }
+        return this.take(end).drop(start);
+    }
+
+    @Nonnull
+    abstract Rope take(int count);
+
+    @Nonnull
+    abstract Rope drop(int count);
+
+    // Copies the characters into destination starting at offset.
+    abstract void getChars(@Nonnull char[] destination, int offset);
+
+    abstract void writeFragments(@Nonnull Writer writer) throws IOException;
+
+    abstract void encodeFragments(@Nonnull Encoding encoding);
+
+    @Nonnull
+    @Override
+    public final String toString() {
+        char[] chars = new char[this.length];
+        this.getChars(chars, 0);
+        return new String(chars);
+    }
+
+    /**
+     * Writes the characters to <code>writer</code>, one fragment at a time, without building the
+     * whole string.
+     */
+    public final void writeTo(@Nonnull Writer writer) throws IOException {
+        this.writeFragments(writer);
+    }
+
+    /**
+     * Encodes the characters into <code>buffer</code>, one fragment at a time, without building
+     * the whole string.
+     *
+     * @throws BufferOverflowException  if the buffer has too little room; its position is then
+     *                                  unspecified.
+     * @throws IllegalArgumentException if the text cannot be encoded in <code>charset</code>.
+     */
+    public final void writeTo(@Nonnull ByteBuffer buffer, @Nonnull Charset charset) {
+        Encoding encoding = new Encoding(charset.newEncoder(), buffer);
+        this.encodeFragments(encoding);
+        encoding.finish();
+    }
+
+    @Override
+    public final boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Rope)) {
+            return false;
+        }
+        Rope other = (Rope) o;
+        if (this.length != other.length) {
+            return false;
+        }
+        if (this.hashCode != 0 && other.hashCode != 0 && this.hashCode != other.hashCode) {
+            return false;
+        }
+        return this.length == 0 || charsEqual(this, other);
+    }
+
+    /**
+     * @return The same hash code as {@link String#hashCode()} of the same characters. It is cached
+     * in every node, and a fork combines the hash codes of its children in constant time.
+     */
+    @Override
+    public final int hashCode() {
+        // Manually expanded thunk
+        int hashCodeCached = this.hashCode;
+        if (hashCodeCached == 0 && !this.hashIsZero) {
+            // This is safe because calcHashCode has no side-effects.
+            int hc = this.calcHashCode();
+            if (hc == 0) {
+                this.hashIsZero = true;
+            } else {
+                this.hashCode = hc;
+            }
+            return hc;
+        }
+        return hashCodeCached;
+    }
+
+    // The hash code of a string is sum(31^(length - 1 - i) * char i), so the hash code of
+    // left + right is hash(left) * 31^|right| + hash(right).
+    abstract int calcHashCode();
+
+    final int power() {
+        int power = this.power;
+        if (power == 0) {
+            power = this.calcPower();
+            this.power = power;
+        }
+        return power;
+    }
+
+    abstract int calcPower();
+
+    // Compares the fragments of two ropes side by side, as ConcatList#equals compares leaves,
+    // skipping sub-trees the two share.
+    // 0 < a.length == b.length
+    private static boolean charsEqual(@Nonnull Rope a, @Nonnull Rope b) {
+        // the nodes still to compare after the current fragments, the next one on top; a stack
+        // holds at most one node per level of the tree
+        Rope[] stackA = new Rope[a.height];
+        Rope[] stackB = new Rope[b.height];
+        stackA[0] = a;
+        stackB[0] = b;
+        int sizeA = 1, sizeB = 1;
+        @Nullable String textA = null;
+        @Nullable String textB = null;
+        int indexA = 0, indexB = 0;
+        while (true) {
+            if (textA == null) {
+                if (sizeA == 0) {
+                    // both ropes have the same length
+                    return true;
+                }
+                Rope nodeA = stackA[sizeA - 1];
+                if (textB == null) {
+                    // both traversals are at a node boundary
+                    Rope nodeB = stackB[sizeB - 1];
+                    if (nodeA == nodeB) {
+                        sizeA--;
+                        sizeB--;
+                        continue;
+                    }
+                    // descend the larger node first, so that a node of the other rope can meet it
+                    if (nodeB instanceof Fork && (nodeB.length > nodeA.length || !(nodeA instanceof Fork))) {
+                        sizeB = descend(stackB, sizeB);
+                        continue;
+                    }
+                }
+                if (nodeA instanceof Fork) {
+                    sizeA = descend(stackA, sizeA);
+                } else {
+                    sizeA--;
+                    textA = ((Leaf) nodeA).text;
+                    indexA = 0;
+                }
+                continue;
+            }
+            if (textB == null) {
+                Rope nodeB = stackB[sizeB - 1];
+                if (nodeB instanceof Fork) {
+                    sizeB = descend(stackB, sizeB);
+                } else {
+                    sizeB--;
+                    textB = ((Leaf) nodeB).text;
+                    indexB = 0;
+                }
+                continue;
+            }
+            int n = Math.min(textA.length() - indexA, textB.length() - indexB);
+            if (!textA.regionMatches(indexA, textB, indexB, n)) {
+                return false;
+            }
+            indexA += n;
+            indexB += n;
+            if (indexA == textA.length()) {
+                textA = null;
+            }
+            if (indexB == textB.length()) {
+                textB = null;
+            }
+        }
+    }
+
+    // Replaces the fork on top of the stack by its children, the left one on top.
+    private static int descend(@Nonnull Rope[] stack, int size) {
+        Fork fork = (Fork) stack[size - 1];
+        stack[size - 1] = fork.right;
+        stack[size] = fork.left;
+        return size + 1;
+    }
+
+    // The shape of the tree, for AvlTrees. Fragments are merged up to MAX_MERGED_LEAF characters.
+    private static final AvlTrees.Shape<Rope> SHAPE = new AvlTrees.Shape<Rope>() {
+        @Override
+        public int height(@Nonnull Rope node) {
+            return node.height;
+        }
+
+        @Nonnull
+        @Override
+        public Rope left(@Nonnull Rope fork) {
+            return ((Fork) fork).left;
+        }
+
+        @Nonnull
+        @Override
+        public Rope right(@Nonnull Rope fork) {
+            return ((Fork) fork).right;
+        }
+
+        @Nonnull
+        @Override
+        public Rope fork(@Nonnull Rope left, @Nonnull Rope right) {
+            return new Fork(left, right);
+        }
+
+        @Nullable
+        @Override
+        public Rope mergeLeaves(@Nonnull Rope left, @Nonnull Rope right) {
+            if (left.length + right.length > MAX_MERGED_LEAF) {
+                return null;
+            }
+            return new Leaf(((Leaf) left).text + ((Leaf) right).text);
+        }
+    };
+
+    // Concatenates two non-empty AVL trees, as ConcatList#append does; short fragments that meet
+    // on the joined spine are merged into one.
+    @Nonnull
+    private static Rope join(@Nonnull Rope left, @Nonnull Rope right) {
+        return AvlTrees.join(SHAPE, left, right);
+    }
+
+    // Encodes fragment after fragment into one buffer. A surrogate pair split between two
+    // fragments is held back by the encoder and carried over to the next fragment.
+    private static final class Encoding {
+        @Nonnull
+        private final CharsetEncoder encoder;
+        @Nonnull
+        private final ByteBuffer buffer;
+        @Nullable
+        private CharBuffer carry = null;
+
+        private Encoding(@Nonnull CharsetEncoder encoder, @Nonnull ByteBuffer buffer) {
+            this.encoder = encoder;
+            this.buffer = buffer;
+        }
+
+        private void encode(@Nonnull String fragment, boolean endOfInput) {
+            CharBuffer input;
+            if (this.carry == null) {
+                input = CharBuffer.wrap(fragment);
+            } else {
+                input = CharBuffer.allocate(this.carry.remaining() + fragment.length());
+                input.put(this.carry).put(fragment).flip();
+                this.carry = null;
+            }
+            check(this.encoder.encode(input, this.buffer, endOfInput));
+            if (input.hasRemaining()) {
+                this.carry = input;
+            }
+        }
+
+        private void finish() {
+            this.encode("", true);
+            check(this.encoder.flush(this.buffer));
+        }
+
+        private static void check(@Nonnull CoderResult result) {
+            if (result.isOverflow()) {
+                throw new BufferOverflowException();
+            }
+            if (result.isError()) {
+                try {
+                    result.throwException();
+                } catch (CharacterCodingException e) {
+                    throw new IllegalArgumentException(e);
+                }
+            }
+        }
+    }
+
+    private final static class Leaf extends Rope {
+        @Nonnull
+        final String text;
+
+        private Leaf(@Nonnull String text) {
+            super(text.length(), 1);
+            this.text = text;
+        }
+
+        @Nonnull
+        @Override
+        Rope take(int count) {
+            return count == this.text.length() ? this : Rope.of(this.text.substring(0, count));
+        }
+
+        @Nonnull
+        @Override
+        Rope drop(int count) {
+            return count == 0 ? this : Rope.of(this.text.substring(count));
+        }
+
+        @Override
+        void getChars(@Nonnull char[] destination, int offset) {
+            this.text.getChars(0, this.text.length(), destination, offset);
+        }
+
+        @Override
+        void writeFragments(@Nonnull Writer writer) throws IOException {
+            writer.write(this.text);
+        }
+
+        @Override
+        void encodeFragments(@Nonnull Encoding encoding) {
+            encoding.encode(this.text, false);
+        }
+
+        @Override
+        int calcHashCode() {
+            return this.text.hashCode();
+        }
+
+        @Override
+        int calcPower() {
+            int power = 1;
+            for (int i = 0; i < this.text.length(); i++) {
+                power *= 31;
+            }
+            return power;
+        }
+    }
+
+    private final static class Fork extends Rope {
+        @Nonnull
+        final Rope left, right;
+
+        private Fork(@Nonnull Rope left, @Nonnull Rope right) {
+            super(left.length + right.length, Math.max(left.height, right.height) + 1);
+            this.left = left;
+            this.right = right;
+        }
+
+        @Nonnull
+        @Override
+        Rope take(int count) {
+            if (count == this.length()) {
+                return this;
+            } else if (count <= this.left.length) {
+                return this.left.take(count);
+            }
+            return this.left.append(this.right.take(count - this.left.length));
+        }
+
+        @Nonnull
+        @Override
+        Rope drop(int count) {
+            if (count == 0) {
+                return this;
+            } else if (count >= this.left.length) {
+                return this.right.drop(count - this.left.length);
+            }
+            return this.left.drop(count).append(this.right);
+        }
+
+        // the recursion in these is bounded by the height of the tree
+
+        @Override
+        void getChars(@Nonnull char[] destination, int offset) {
+            this.left.getChars(destination, offset);
+            this.right.getChars(destination, offset + this.left.length);
+        }
+
+        @Override
+        void writeFragments(@Nonnull Writer writer) throws IOException {
+            this.left.writeFragments(writer);
+            this.right.writeFragments(writer);
+        }
+
+        @Override
+        void encodeFragments(@Nonnull Encoding encoding) {
+            this.left.encodeFragments(encoding);
+            this.right.encodeFragments(encoding);
+        }
+
+        @Override
+        int calcHashCode() {
+            return this.left.hashCode() * this.right.power() + this.right.hashCode();
+        }
+
+        @Override
+        int calcPower() {
+            return this.left.power() * this.right.power();
+        }
+    }
+}
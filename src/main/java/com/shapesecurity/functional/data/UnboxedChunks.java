@@ -0,0 +1,35 @@
+/*
+ * Copyright 2014 Shape Security, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.shapesecurity.functional.data;
+
+// The chunk sizing policy shared by ImmutableIntList and ImmutableLongList.
+final class UnboxedChunks {
+    static final int MIN_CAPACITY = 4;
+    static final int MAX_CAPACITY = 256;
+
+    private UnboxedChunks() {
+    }
+
+    // The capacity of a new chunk for a cons. A run of conses that fills a chunk continues into a
+    // chunk twice as large, so a list built by repeated cons takes O(n) space in O(log n + n / 256)
+    // chunks. Any other cons, such as a second branch off a shared list or a cons onto a packed
+    // list, starts again from the smallest chunk, so it costs little more than a boxed cell.
+    // filledCapacity is the capacity of the chunk the run filled, or 0 if there is none.
+    static int nextCapacity(int filledCapacity) {
+        return filledCapacity == 0 ? MIN_CAPACITY : Math.min(MAX_CAPACITY, 2 * filledCapacity);
+    }
+}
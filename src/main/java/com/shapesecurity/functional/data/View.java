@@ -0,0 +1,260 @@
+/*
+ * Copyright 2014 Shape Security, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.shapesecurity.functional.data;
+
+import com.shapesecurity.functional.F;
+import com.shapesecurity.functional.F2;
+
+import javax.annotation.CheckReturnValue;
+import javax.annotation.Nonnull;
+import java.util.Iterator;
+import java.util.function.Consumer;
+
+/**
+ * A lazy, fused pipeline of transformations over a collection. <p> Intermediate operations such
+ * as {@link #map}, {@link #filter} and {@link #take} only record the transformation. Nothing is
+ * computed until a terminal operation such as {@link #toList}, {@link #foldLeft} or {@link #find}
+ * is called, at which point every element flows through the whole chain in a single pass without
+ * building intermediate collections. {@link #take}, {@link #takeWhile} and {@link #find} stop
+ * pulling from the source as soon as they are satisfied. <p> A view can be run any number of times
+ * and reflects its (immutable) source each time. Obtain one with {@link ImmutableList#view()},
+ * {@link ConcatList#view()}, {@link ImmutableSet#view()} or {@link #from(Iterable)}.
+ *
+ * @param <A> The type of the elements produced by this view.
+ */
+@CheckReturnValue
+public abstract class View<A> {
+    // package local
+    View() {
+    }
+
+    // Receives the elements of a view. Returns false to stop the traversal.
+    @FunctionalInterface
+    interface Sink<A> {
+        boolean accept(@Nonnull A a);
+    }
+
+    /**
+     * Pushes the elements to <code>sink</code> in order until the elements run out or
+     * <code>sink</code> returns false.
+     *
+     * @return false if the traversal was stopped by <code>sink</code>.
+     */
+    abstract boolean run(@Nonnull Sink<? super A> sink);
+
+    @Nonnull
+    public static <A> View<A> from(@Nonnull Iterable<A> source) {
+        return new View<A>() {
+            @Override
+            boolean run(@Nonnull Sink<? super A> sink) {
+                for (Iterator<A> iterator = source.iterator(); iterator.hasNext(); ) {
+                    if (!sink.accept(iterator.next())) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+        };
+    }
+
+    @Nonnull
+    static <A> View<A> from(@Nonnull ImmutableList<A> source) {
+        return new View<A>() {
+            @Override
+            boolean run(@Nonnull Sink<? super A> sink) {
+                ImmutableList<A> list = source;
+                while (list instanceof NonEmptyImmutableList) {
+                    if (!sink.accept(((NonEmptyImmutableList<A>) list).head)) {
+                        return false;
+                    }
+                    list = ((NonEmptyImmutableList<A>) list).tail;
+                }
+                return true;
+            }
+        };
+    }
+
+    // Intermediate operations
+
+    @Nonnull
+    public final <B> View<B> map(@Nonnull F<A, B> f) {
+        View<A> self = this;
+        return new View<B>() {
+            @Override
+            boolean run(@Nonnull Sink<? super B> sink) {
+                return self.run(a -> sink.accept(f.apply(a)));
+            }
+        };
+    }
+
+    @Nonnull
+    public final View<A> filter(@Nonnull F<A, Boolean> f) {
+        View<A> self = this;
+        return new View<A>() {
+            @Override
+            boolean run(@Nonnull Sink<? super A> sink) {
+                return self.run(a -> !f.apply(a) || sink.accept(a));
+            }
+        };
+    }
+
+    @Nonnull
+    public final <B> View<B> flatMap(@Nonnull F<A, ? extends Iterable<B>> f) {
+        View<A> self = this;
+        return new View<B>() {
+            @Override
+            boolean run(@Nonnull Sink<? super B> sink) {
+                return self.run(a -> {
+                    for (B b : f.apply(a)) {
+                        if (!sink.accept(b)) {
+                            return false;
+                        }
+                    }
+                    return true;
+                });
+            }
+        };
+    }
+
+    /**
+     * Keeps at most the first <code>n</code> elements. The source is not traversed past the
+     * <code>n</code>th element.
+     */
+    @Nonnull
+    public final View<A> take(int n) {
+        View<A> self = this;
+        return new View<A>() {
+            @Override
+            boolean run(@Nonnull Sink<? super A> sink) {
+                if (n <= 0) {
+                    return true;
+                }
+                int[] remaining = { n };
+                return self.run(a -> sink.accept(a) && --remaining[0] > 0) || remaining[0] == 0;
+            }
+        };
+    }
+
+    @Nonnull
+    public final View<A> drop(int n) {
+        View<A> self = this;
+        return new View<A>() {
+            @Override
+            boolean run(@Nonnull Sink<? super A> sink) {
+                int[] remaining = { n };
+                return self.run(a -> {
+                    if (remaining[0] > 0) {
+                        remaining[0]--;
+                        return true;
+                    }
+                    return sink.accept(a);
+                });
+            }
+        };
+    }
+
+    @Nonnull
+    public final View<A> takeWhile(@Nonnull F<A, Boolean> f) {
+        View<A> self = this;
+        return new View<A>() {
+            @Override
+            boolean run(@Nonnull Sink<? super A> sink) {
+                boolean[] done = { false };
+                return self.run(a -> {
+                    if (!f.apply(a)) {
+                        done[0] = true;
+                        return false;
+                    }
+                    return sink.accept(a);
+                }) || done[0];
+            }
+        };
+    }
+
+    // Terminal operations
+
+    public final void forEach(@Nonnull Consumer<? super A> action) {
+        this.run(a -> {
+            action.accept(a);
+            return true;
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    @Nonnull
+    public final <B> B foldLeft(@Nonnull F2<B, ? super A, B> f, @Nonnull B init) {
+        Object[] acc = { init };
+        this.run(a -> {
+            acc[0] = f.apply((B) acc[0], a);
+            return true;
+        });
+        return (B) acc[0];
+    }
+
+    @SuppressWarnings("unchecked")
+    @Nonnull
+    public final Maybe<A> find(@Nonnull F<A, Boolean> f) {
+        Object[] found = { null };
+        this.run(a -> {
+            if (f.apply(a)) {
+                found[0] = a;
+                return false;
+            }
+            return true;
+        });
+        return Maybe.fromNullable((A) found[0]);
+    }
+
+    public final boolean exists(@Nonnull F<A, Boolean> f) {
+        return !this.run(a -> !f.apply(a));
+    }
+
+    public final boolean every(@Nonnull F<A, Boolean> f) {
+        return this.run(f::apply);
+    }
+
+    public final int count() {
+        int[] count = { 0 };
+        this.run(a -> {
+            count[0]++;
+            return true;
+        });
+        return count[0];
+    }
+
+    @Nonnull
+    public final ImmutableList<A> toList() {
+        ImmutableList.Builder<A> out = ImmutableList.builder();
+        this.run(a -> {
+            out.add(a);
+            return true;
+        });
+        return out.build();
+    }
+
+    @Nonnull
+    public final ConcatList<A> toConcatList() {
+        ConcatList.Collector<A> out = new ConcatList.Collector<>();
+        this.run(out);
+        return out.build();
+    }
+
+    @Nonnull
+    public final ImmutableSet<A> toSet(@Nonnull Hasher<A> hasher) {
+        return this.foldLeft(ImmutableSet::put, ImmutableSet.empty(hasher));
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2014 Shape Security, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.shapesecurity.functional.data;
+
+import com.shapesecurity.functional.Pair;
+import com.shapesecurity.functional.TestBase;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class AnnotatedConcatListTest extends TestBase {
+    @Test
+    public void testSummary() {
+        AnnotatedConcatList<Integer, Integer> list = AnnotatedConcatList.empty(Monoid.INTEGER_ADDITIVE, x -> x);
+        assertEquals(0, (int) list.summary());
+        for (int i = 0; i < 1000; i++) {
+            list = list.append1(i);
+        }
+        assertEquals(1000, list.length);
+        assertEquals(range(1000), list.toList());
+        assertEquals(999 * 1000 / 2, (int) list.summary());
+        assertTrue(list.height <= 1.44 * Math.log(1002) / Math.log(2));
+        assertEquals(list.toList(), list.toConcatList().toList());
+        assertEquals(Maybe.of(10), list.index(10));
+        assertEquals(Maybe.<Integer>empty(), list.index(1000));
+    }
+
+    @Test
+    public void testUpdate() {
+        AnnotatedConcatList<Integer, Integer> list = AnnotatedConcatList.from(Monoid.INTEGER_ADDITIVE, x -> x, range(500));
+        int[] expected = new int[500];
+        for (int i = 0; i < 500; i++) {
+            expected[i] = i;
+        }
+        for (int i = 0; i < 500; i += 7) {
+            list = list.update(i, -i).fromJust();
+            expected[i] = -i;
+            assertEquals(Arrays.stream(expected).sum(), (int) list.summary());
+        }
+        assertEquals(ImmutableList.from(Arrays.stream(expected).boxed().collect(Collectors.toList())), list.toList());
+        assertEquals(Maybe.empty(), list.update(500, 0));
+    }
+
+    @Test
+    public void testSplitAppend() {
+        AnnotatedConcatList<Integer, String> list = AnnotatedConcatList.from(Monoid.STRING_CONCAT, x -> x + ",", range(100));
+        for (int i = 0; i <= 100; i++) {
+            Pair<AnnotatedConcatList<Integer, String>, AnnotatedConcatList<Integer, String>> split = list.split(i).fromJust();
+            assertEquals(range(i), split.left.toList());
+            assertEquals(range(i, 100), split.right.toList());
+            assertEquals(range(i).foldLeft((acc, x) -> acc + x + ",", ""), split.left.summary());
+            AnnotatedConcatList<Integer, String> rejoined = split.left.append(split.right);
+            assertEquals(list.summary(), rejoined.summary());
+            assertTrue(rejoined.height <= 1.44 * Math.log(102) / Math.log(2));
+        }
+    }
+
+    @Test
+    public void testIterator() {
+        for (int n : new int[]{ 0, 1, 2, 3, 100 }) {
+            AnnotatedConcatList<Integer, Integer> list = AnnotatedConcatList.from(Monoid.INTEGER_ADDITIVE, x -> x, range(n));
+            ArrayList<Integer> visited = new ArrayList<>();
+            for (Integer x : list) {
+                visited.add(x);
+            }
+            assertEquals(range(n), ImmutableList.from(visited));
+            Iterator<Integer> iterator = list.iterator();
+            for (int i = 0; i < n; i++) {
+                iterator.next();
+            }
+            assertFalse(iterator.hasNext());
+            try {
+                iterator.next();
+                fail();
+            } catch (NoSuchElementException ignored) {
+            }
+        }
+    }
+}
@@ -16,6 +16,8 @@
 
 package com.shapesecurity.functional.data;
 
+import java.util.stream.Stream;
+
 public class BenchmarkConcatList {
 
     public static final int SIZE = 10000;
@@ -105,6 +107,10 @@ public class BenchmarkConcatList {
         benchmarkFind(l);
         System.out.print("benchmarkToList: ");
         benchmarkToList(l);
+        System.out.print("benchmarkSequentialStream: ");
+        benchmarkStream(l, false);
+        System.out.print("benchmarkParallelStream: ");
+        benchmarkStream(l, true);
     }
 
     private static void benchmarkForeachIndexUpdate(ConcatList<Integer> l) {
@@ -179,4 +185,29 @@ public class BenchmarkConcatList {
         System.out.printf("%.3fµs\n", elapse * 1e-3 / MEASURE);
     }
 
+    private static void benchmarkStream(ConcatList<Integer> l, boolean parallel) {
+        int warmup = WARMUP / 10;
+        for (int i = 0; i < warmup; i++) {
+            streamWork(l, parallel);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURE; i++) {
+            streamWork(l, parallel);
+        }
+        long elapse = System.nanoTime() - start;
+        System.out.printf("%.3fµs\n", elapse * 1e-3 / MEASURE);
+    }
+
+    // Enough work per element for the split to pay off.
+    private static long streamWork(ConcatList<Integer> l, boolean parallel) {
+        Stream<Integer> stream = parallel ? l.stream().parallel() : l.stream();
+        return stream.mapToLong(n -> {
+            long h = n;
+            for (int i = 0; i < 100; i++) {
+                h = h * 31 + i;
+            }
+            return h;
+        }).sum();
+    }
 }
@@ -0,0 +1,223 @@
+/*
+ * Copyright 2014 Shape Security, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.shapesecurity.functional.data;
+
+import com.shapesecurity.functional.TestBase;
+
+import java.lang.management.ManagementFactory;
+
+public class BenchmarkImmutableIntList extends TestBase {
+    private static final int SIZE = 10000;
+
+    public static void main(String[] args) {
+        ImmutableList<Integer> boxed = ImmutableList.empty();
+        ImmutableIntList unboxed = ImmutableIntList.empty();
+        for (int i = 0; i < SIZE; i++) {
+            boxed = boxed.cons(i);
+            unboxed = unboxed.cons(i);
+        }
+        System.out.print("benchmarkCons (ImmutableList<Integer>): ");
+        benchmarkConsBoxed();
+        System.out.print("benchmarkCons (ImmutableIntList): ");
+        benchmarkConsUnboxed();
+        System.out.printf("allocatedPerFanOutBranch (ImmutableList<Integer>): %d bytes\n", allocatedPerBranchBoxed(boxed));
+        System.out.printf("allocatedPerFanOutBranch (ImmutableIntList): %d bytes\n", allocatedPerBranchUnboxed(unboxed));
+        System.out.printf("allocatedPerFanOutBranch (ImmutableIntList, packed): %d bytes\n", allocatedPerBranchUnboxed(ImmutableIntList.of(unboxed.toArray())));
+        System.out.print("benchmarkFanOutCons (ImmutableList<Integer>): ");
+        benchmarkFanOutConsBoxed(boxed);
+        System.out.print("benchmarkFanOutCons (ImmutableIntList): ");
+        benchmarkFanOutConsUnboxed(unboxed);
+        System.out.print("benchmarkFanOutCons (ImmutableIntList, packed): ");
+        benchmarkFanOutConsUnboxed(ImmutableIntList.of(unboxed.toArray()));
+        System.out.print("benchmarkSum (ImmutableList<Integer>): ");
+        benchmarkSumBoxed(boxed);
+        System.out.print("benchmarkSum (ImmutableIntList): ");
+        benchmarkSumUnboxed(unboxed);
+        System.out.print("benchmarkMapFilterFold (ImmutableList<Integer>): ");
+        benchmarkMapFilterFoldBoxed(boxed);
+        System.out.print("benchmarkMapFilterFold (ImmutableIntList): ");
+        benchmarkMapFilterFoldUnboxed(unboxed);
+    }
+
+    private static void benchmarkConsBoxed() {
+        int warmup = 1000;
+        for (int i = 0; i < warmup; i++) {
+            ImmutableList<Integer> l = ImmutableList.empty();
+            for (int j = 0; j < SIZE; j++) {
+                l = l.cons(j);
+            }
+        }
+
+        int measure = 1000;
+        long start = System.nanoTime();
+        for (int i = 0; i < measure; i++) {
+            ImmutableList<Integer> l = ImmutableList.empty();
+            for (int j = 0; j < SIZE; j++) {
+                l = l.cons(j);
+            }
+        }
+        long elapse = System.nanoTime() - start;
+        System.out.printf("%.3fµs\n", elapse * 1e-3 / measure);
+    }
+
+    private static void benchmarkConsUnboxed() {
+        int warmup = 1000;
+        for (int i = 0; i < warmup; i++) {
+            ImmutableIntList l = ImmutableIntList.empty();
+            for (int j = 0; j < SIZE; j++) {
+                l = l.cons(j);
+            }
+        }
+
+        int measure = 1000;
+        long start = System.nanoTime();
+        for (int i = 0; i < measure; i++) {
+            ImmutableIntList l = ImmutableIntList.empty();
+            for (int j = 0; j < SIZE; j++) {
+                l = l.cons(j);
+            }
+        }
+        long elapse = System.nanoTime() - start;
+        System.out.printf("%.3fµs\n", elapse * 1e-3 / measure);
+    }
+
+    // Conses SIZE branches of two elements each onto one shared list, keeping all of them alive.
+    private static void benchmarkFanOutConsBoxed(ImmutableList<Integer> shared) {
+        int warmup = 100;
+        for (int i = 0; i < warmup; i++) {
+            ImmutableList<?>[] branches = new ImmutableList<?>[SIZE];
+            for (int j = 0; j < SIZE; j++) {
+                branches[j] = shared.cons(j).cons(j);
+            }
+        }
+
+        int measure = 100;
+        long start = System.nanoTime();
+        for (int i = 0; i < measure; i++) {
+            ImmutableList<?>[] branches = new ImmutableList<?>[SIZE];
+            for (int j = 0; j < SIZE; j++) {
+                branches[j] = shared.cons(j).cons(j);
+            }
+        }
+        long elapse = System.nanoTime() - start;
+        System.out.printf("%.3fµs\n", elapse * 1e-3 / measure);
+    }
+
+    private static long allocatedPerBranchBoxed(ImmutableList<Integer> shared) {
+        ImmutableList<?>[] branches = new ImmutableList<?>[SIZE];
+        long before = allocatedBytes();
+        for (int j = 0; j < SIZE; j++) {
+            branches[j] = shared.cons(j).cons(j);
+        }
+        return (allocatedBytes() - before) / SIZE;
+    }
+
+    private static void benchmarkFanOutConsUnboxed(ImmutableIntList shared) {
+        int warmup = 100;
+        for (int i = 0; i < warmup; i++) {
+            ImmutableIntList[] branches = new ImmutableIntList[SIZE];
+            for (int j = 0; j < SIZE; j++) {
+                branches[j] = shared.cons(j).cons(j);
+            }
+        }
+
+        int measure = 100;
+        long start = System.nanoTime();
+        for (int i = 0; i < measure; i++) {
+            ImmutableIntList[] branches = new ImmutableIntList[SIZE];
+            for (int j = 0; j < SIZE; j++) {
+                branches[j] = shared.cons(j).cons(j);
+            }
+        }
+        long elapse = System.nanoTime() - start;
+        System.out.printf("%.3fµs\n", elapse * 1e-3 / measure);
+    }
+
+    private static long allocatedPerBranchUnboxed(ImmutableIntList shared) {
+        ImmutableIntList[] branches = new ImmutableIntList[SIZE];
+        long before = allocatedBytes();
+        for (int j = 0; j < SIZE; j++) {
+            branches[j] = shared.cons(j).cons(j);
+        }
+        return (allocatedBytes() - before) / SIZE;
+    }
+
+    // The bytes allocated so far by the current thread.
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static void benchmarkSumBoxed(ImmutableList<Integer> l) {
+        int warmup = 10000;
+        for (int i = 0; i < warmup; i++) {
+            l.foldLeft(Monoid.INTEGER_ADDITIVE::append, Monoid.INTEGER_ADDITIVE.identity());
+        }
+
+        int measure = 10000;
+        long start = System.nanoTime();
+        for (int i = 0; i < measure; i++) {
+            l.foldLeft(Monoid.INTEGER_ADDITIVE::append, Monoid.INTEGER_ADDITIVE.identity());
+        }
+        long elapse = System.nanoTime() - start;
+        System.out.printf("%.3fµs\n", elapse * 1e-3 / measure);
+    }
+
+    private static void benchmarkSumUnboxed(ImmutableIntList l) {
+        int warmup = 10000;
+        for (int i = 0; i < warmup; i++) {
+            l.sum();
+        }
+
+        int measure = 10000;
+        long start = System.nanoTime();
+        for (int i = 0; i < measure; i++) {
+            l.sum();
+        }
+        long elapse = System.nanoTime() - start;
+        System.out.printf("%.3fµs\n", elapse * 1e-3 / measure);
+    }
+
+    private static void benchmarkMapFilterFoldBoxed(ImmutableList<Integer> l) {
+        int warmup = 10000;
+        for (int i = 0; i < warmup; i++) {
+            l.map(x -> x * 3).filter(x -> x % 2 == 0).foldLeft((acc, x) -> acc + x, 0);
+        }
+
+        int measure = 10000;
+        long start = System.nanoTime();
+        for (int i = 0; i < measure; i++) {
+            l.map(x -> x * 3).filter(x -> x % 2 == 0).foldLeft((acc, x) -> acc + x, 0);
+        }
+        long elapse = System.nanoTime() - start;
+        System.out.printf("%.3fµs\n", elapse * 1e-3 / measure);
+    }
+
+    private static void benchmarkMapFilterFoldUnboxed(ImmutableIntList l) {
+        int warmup = 10000;
+        for (int i = 0; i < warmup; i++) {
+            l.map(x -> x * 3).filter(x -> x % 2 == 0).foldLeft((acc, x) -> acc + x, 0);
+        }
+
+        int measure = 10000;
+        long start = System.nanoTime();
+        for (int i = 0; i < measure; i++) {
+            l.map(x -> x * 3).filter(x -> x % 2 == 0).foldLeft((acc, x) -> acc + x, 0);
+        }
+        long elapse = System.nanoTime() - start;
+        System.out.printf("%.3fµs\n", elapse * 1e-3 / measure);
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2014 Shape Security, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.shapesecurity.functional.data;
+
+import com.shapesecurity.functional.Pair;
+
+import java.lang.management.ManagementFactory;
+
+// Reports the bytes allocated per traversal, as counted by the JVM for the current thread.
+public class BenchmarkIterationAllocation {
+    public static final int SIZE = 1000000;
+    public static final int WARMUP = 200;
+    public static final int MEASURE = 100;
+
+    private static final com.sun.management.ThreadMXBean THREADS = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    public static void main(String[] args) {
+        ConcatList<Integer> list = ConcatList.empty();
+        for (int i = 0; i < SIZE; i++) {
+            list = list.append1(i);
+        }
+        ConcatList<Integer> balanced = ConcatList.fromList(list.toList().toArrayList());
+        HashTable<Integer, Integer> table = HashTable.emptyUsingEquality();
+        for (int i = 0; i < SIZE; i++) {
+            table = table.put(i, i);
+        }
+
+        System.out.print("ConcatList (balanced) forEach: ");
+        measure(() -> balanced.forEach(n -> sink += n));
+        System.out.print("ConcatList (balanced) iterator: ");
+        measure(() -> {
+            for (int n : balanced) {
+                sink += n;
+            }
+        });
+        System.out.print("ConcatList (balanced) find: ");
+        measure(() -> balanced.find(n -> n == -1));
+        System.out.print("ConcatList (built by append1) forEach: ");
+        ConcatList<Integer> appended = list;
+        measure(() -> appended.forEach(n -> sink += n));
+        System.out.print("HashTable iterator: ");
+        HashTable<Integer, Integer> t = table;
+        measure(() -> {
+            for (Pair<Integer, Integer> p : t) {
+                sink += p.right;
+            }
+        });
+    }
+
+    private static int sink = 0;
+
+    private static void measure(Runnable traversal) {
+        for (int i = 0; i < WARMUP; i++) {
+            traversal.run();
+        }
+
+        long thread = Thread.currentThread().getId();
+        long startBytes = THREADS.getThreadAllocatedBytes(thread);
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURE; i++) {
+            traversal.run();
+        }
+        long elapse = System.nanoTime() - start;
+        long bytes = THREADS.getThreadAllocatedBytes(thread) - startBytes;
+        System.out.printf("%.3fµs, %d bytes allocated\n", elapse * 1e-3 / MEASURE, bytes / MEASURE);
+    }
+}
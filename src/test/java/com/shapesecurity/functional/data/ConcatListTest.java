@@ -16,12 +16,21 @@
 
 package com.shapesecurity.functional.data;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
 import java.util.function.IntFunction;
 
 import com.shapesecurity.functional.F;
+import com.shapesecurity.functional.Pair;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -186,6 +195,158 @@ public class ConcatListTest {
         }
     }
 
+    @Test
+    public void heightTest() {
+        // an AVL tree of n leaves is at most 1.44 log2(n + 2) high
+        int N = 100000;
+        ConcatList<Integer> list = generator.apply(N);
+        assertTrue(list.height <= 1.44 * Math.log(N + 2) / Math.log(2));
+        for (int i = 0; i < N; i += 997) {
+            Pair<ConcatList<Integer>, ConcatList<Integer>> split = list.split(i).fromJust();
+            assertTrue(split.left.height <= 1.44 * Math.log(i + 2) / Math.log(2));
+            assertTrue(split.right.height <= 1.44 * Math.log(N - i + 2) / Math.log(2));
+            assertEquals(list.toList(), split.left.append(split.right).toList());
+        }
+        ConcatList<Integer> updated = list.update(N / 3, -1).fromJust();
+        assertTrue(updated.height <= 1.44 * Math.log(N + 2) / Math.log(2));
+    }
+
+    @Test
+    public void chunkTest() {
+        // single elements are packed into leaves of up to 32
+        assertTrue(generator.apply(1000).height <= 7);
+        int N = 100;
+        ConcatList<Integer> list = generator.apply(N);
+        List<Integer> expected = list.toList().toArrayList();
+        for (int i = 0; i <= N; i++) {
+            Pair<ConcatList<Integer>, ConcatList<Integer>> split = list.split(i).fromJust();
+            assertEquals(expected.subList(0, i), split.left.toList().toArrayList());
+            assertEquals(expected.subList(i, N), split.right.toList().toArrayList());
+        }
+        // a split in the middle of a leaf
+        Spliterator<Integer> spliterator = list.spliterator();
+        List<Integer> seen = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            spliterator.tryAdvance(seen::add);
+        }
+        Spliterator<Integer> prefix = spliterator.trySplit();
+        assertEquals(47, prefix.estimateSize());
+        prefix.forEachRemaining(seen::add);
+        spliterator.forEachRemaining(seen::add);
+        assertEquals(expected, seen);
+    }
+
+    @Test
+    public void mapFilterFlatMapTest() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        for (int N : new int[]{ 0, 1, 31, 32, 33, 1000 }) {
+            ConcatList<Integer> list = generator.apply(N);
+            ImmutableList<Integer> expected = list.toList();
+            double bound = 1.44 * Math.log(N + 2) / Math.log(2);
+
+            assertEquals(expected.map(i -> i * 2), list.map(i -> i * 2).toList());
+            assertEquals(expected.map(i -> i * 2), list.parallelMap(i -> i * 2, pool, 1).toList());
+            assertEquals(list.height, list.map(i -> i * 2).height);
+
+            ConcatList<Integer> filtered = list.filter(i -> i % 3 == 0);
+            assertEquals(expected.filter(i -> i % 3 == 0), filtered.toList());
+            assertEquals(expected.filter(i -> i % 3 == 0), list.parallelFilter(i -> i % 3 == 0, pool, 1).toList());
+            assertTrue(filtered.height <= bound);
+            assertTrue(list == list.filter(i -> true));
+
+            ConcatList<Integer> expanded = list.flatMap(i -> ConcatList.of(i, -i));
+            assertEquals(expected.flatMap(i -> ImmutableList.of(i, -i)), expanded.toList());
+            assertEquals(expected.flatMap(i -> ImmutableList.of(i, -i)), list.parallelFlatMap(i -> ConcatList.of(i, -i), pool, 1).toList());
+            assertEquals(expected.flatMap(i -> ImmutableList.of(i, -i)), list.parallelFlatMap(i -> ConcatList.of(i, -i)).toList());
+            assertTrue(expanded.height <= 1.44 * Math.log(2 * N + 2) / Math.log(2));
+        }
+        pool.shutdown();
+    }
+
+    @Test
+    public void insertRemoveSliceTest() {
+        int N = 300;
+        ConcatList<Integer> list = generator.apply(N);
+        List<Integer> expected = new ArrayList<>(list.toList().toArrayList());
+        for (int i = 0; i < 500; i++) {
+            int index = i * 7919 % (expected.size() + 1);
+            list = list.insertAt(index, -i).fromJust();
+            expected.add(index, -i);
+            if (i % 3 == 0) {
+                list = list.removeAt(index / 2).fromJust();
+                expected.remove(index / 2);
+            }
+            assertTrue(list.height <= 1.44 * Math.log(list.length + 2) / Math.log(2));
+        }
+        assertEquals(expected, list.toList().toArrayList());
+        assertEquals(Maybe.empty(), list.insertAt(list.length + 1, 0));
+        assertEquals(Maybe.empty(), list.removeAt(list.length));
+        assertEquals(ImmutableList.of(1), ConcatList.<Integer>empty().insertAt(0, 1).fromJust().toList());
+        assertTrue(ConcatList.single(1).removeAt(0).fromJust().isEmpty());
+
+        int size = expected.size();
+        for (int from = 0; from <= size; from += 37) {
+            for (int to = from; to <= size; to += 53) {
+                ConcatList<Integer> slice = list.slice(from, to).fromJust();
+                assertEquals(expected.subList(from, to), slice.toList().toArrayList());
+                assertTrue(slice.height <= 1.44 * Math.log(to - from + 2) / Math.log(2));
+                List<Integer> rest = new ArrayList<>(expected.subList(0, from));
+                rest.addAll(expected.subList(to, size));
+                ConcatList<Integer> removed = list.removeRange(from, to).fromJust();
+                assertEquals(rest, removed.toList().toArrayList());
+                assertTrue(removed.height <= 1.44 * Math.log(rest.size() + 2) / Math.log(2));
+            }
+        }
+        assertEquals(Maybe.empty(), list.slice(2, 1));
+        assertEquals(Maybe.empty(), list.removeRange(0, size + 1));
+    }
+
+    @Test
+    public void equalsHashCodeTest() {
+        for (int N : new int[]{ 0, 1, 31, 32, 33, 1000 }) {
+            ConcatList<Integer> list = generator.apply(N);
+            List<Integer> expected = list.toList().toArrayList();
+            ConcatList<Integer> reshaped = ConcatList.fromList(expected).slice(0, N / 3).fromJust().append(ConcatList.fromList(expected.subList(N / 3, N)));
+            assertEquals(expected.hashCode(), list.hashCode());
+            assertEquals(list, reshaped);
+            assertEquals(reshaped, list);
+            assertEquals(list.hashCode(), reshaped.hashCode());
+            assertEquals(list, list.map(x -> x));
+            assertFalse(list.equals(list.append1(0)));
+            assertFalse(list.equals(expected));
+            if (N > 0) {
+                assertFalse(list.equals(reshaped.update(N - 1, -1).fromJust()));
+                assertFalse(list.hashCode() == reshaped.update(N - 1, -1).fromJust().hashCode());
+                // a shared sub-tree is skipped
+                ConcatList<Integer> prefix = ConcatList.of(1, 2, 3);
+                assertEquals(prefix.append(list), ConcatList.of(1).append(ConcatList.of(2, 3).append(list)));
+            }
+        }
+        assertEquals(ConcatList.of("a", "b"), ConcatList.of("a").append1("b"));
+        assertEquals(ConcatList.of("a", "b").append1("c").hashCode(), Arrays.asList("a", "b", "c").hashCode());
+        // a hash code of 0 is cached like any other
+        ConcatList<Integer> zero = ConcatList.of(-31);
+        assertEquals(0, zero.hashCode());
+        assertEquals(0, zero.hashCode());
+        assertEquals(Arrays.asList(-31, 7).hashCode(), zero.append1(7).hashCode());
+    }
+
+    @Test
+    public void foldMapTest() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        for (int N : new int[]{ 0, 1, 31, 32, 33, 1000 }) {
+            ConcatList<Integer> list = generator.apply(N);
+            String expected = list.foldLeft((acc, i) -> acc + i + ",", "");
+            assertEquals(expected, list.foldMap(Monoid.STRING_CONCAT, i -> i + ","));
+            assertEquals(expected, list.parallelFoldMap(Monoid.STRING_CONCAT, i -> i + ","));
+            assertEquals(expected, list.parallelFoldMap(Monoid.STRING_CONCAT, i -> i + ",", pool, 1));
+            assertEquals(N * (N - 1) / 2, (int) Monoid.INTEGER_ADDITIVE.mconcat(list));
+            assertEquals(N * (N - 1) / 2, (int) Monoid.INTEGER_ADDITIVE.parallelMconcat(list, pool, 7));
+            assertEquals(N * (N - 1) / 2, (int) Monoid.INTEGER_ADDITIVE.mconcat(list.toList()));
+        }
+        pool.shutdown();
+    }
+
     @Test
     public void forEachTest() {
         for (int N = 0; N < 20; ++N) {
@@ -202,4 +363,87 @@ public class ConcatListTest {
             assertEquals("foreach over over " + N, N * (N - 1) / 2, sumBox[0]);
         }
     }
+
+    @Test
+    public void byPredicateTest() {
+        for (int N = 0; N < 20; ++N) {
+            ConcatList<Integer> list = generator.apply(N);
+            assertEquals(N * (N - 1) / 2, list.sumInt(i -> i));
+            assertEquals(list.foldLeft((acc, i) -> acc * 31 + i, 0), (Integer) list.foldLeftInt((acc, i) -> acc * 31 + i, 0));
+            assertEquals((N + 1) / 2, list.countByPredicate(i -> i % 2 == 0));
+            assertEquals(N > 5, list.existsByPredicate(i -> i == 5));
+            assertEquals(list.find(i -> i > 3), list.findByPredicate(i -> i > 3));
+        }
+    }
+
+    @Test
+    public void sortTest() {
+        for (int N = 0; N < 20; ++N) {
+            ConcatList<Integer> list = generator.apply(N);
+            ConcatList<Integer> reversed = list.sort(Comparator.reverseOrder());
+            assertEquals(list.toList().reverse(), reversed.toList());
+            assertEquals(list.toList(), reversed.sort(Comparator.naturalOrder()).toList());
+            assertTrue(list == list.sort(Comparator.naturalOrder()));
+        }
+    }
+
+    @Test
+    public void groupByTest() {
+        for (int N = 0; N < 20; ++N) {
+            ConcatList<Integer> list = generator.apply(N);
+            assertEquals(list.toList().filter(i -> i % 3 == 1), list.groupBy(i -> i % 3).get(1));
+            assertEquals(list.toList().countBy(i -> i % 3).toHashMap(), list.countBy(i -> i % 3).toHashMap());
+            assertEquals(list.toList().indexBy(i -> i % 3).toHashMap(), list.indexBy(i -> i % 3).toHashMap());
+        }
+    }
+
+    @Test
+    public void chunksTest() {
+        for (int N = 0; N < 20; ++N) {
+            ConcatList<Integer> list = generator.apply(N);
+            ArrayList<Object> seen = new ArrayList<>();
+            list.forEachChunk(3, chunk -> seen.addAll(Arrays.asList(chunk)));
+            assertEquals(list.toList().toArrayList(), seen);
+            assertEquals(list.toList().grouped(3), list.grouped(3).toList().map(ConcatList::toList));
+            assertEquals(list.toList().sliding(4, 2), list.sliding(4, 2).toList().map(ConcatList::toList));
+        }
+    }
+
+    @Test
+    public void deepTreeTest() {
+        int N = 100000;
+        ConcatList<Integer> list = generator.apply(N);
+        int[] sum = { 0 };
+        for (int i : list) {
+            sum[0] += i;
+        }
+        list.forEach(i -> sum[0] -= i);
+        assertEquals(0, sum[0]);
+        assertEquals(Maybe.of(N - 1), list.find(i -> i == N - 1));
+        assertEquals(Maybe.of(N - 1), list.reverse().index(0));
+        assertEquals(N - 1, (int) list.foldRight((i, acc) -> acc == -1 ? i : acc, -1));
+    }
+
+    @Test
+    public void spliteratorTest() {
+        for (int N = 0; N < 100; ++N) {
+            ConcatList<Integer> list = generator.apply(N);
+            assertEquals(list.toList().toArrayList(), list.stream().parallel().collect(Collectors.toList()));
+            Spliterator<Integer> right = list.spliterator();
+            Spliterator<Integer> left = right.trySplit();
+            if (N < 2) {
+                assertNull(left);
+            } else {
+                assertEquals(N, left.estimateSize() + right.estimateSize());
+                assertTrue(left.estimateSize() > 0 && right.estimateSize() > 0);
+                List<Integer> seen = new ArrayList<>();
+                left.forEachRemaining(seen::add);
+                right.forEachRemaining(seen::add);
+                assertEquals(list.toList().toArrayList(), seen);
+            }
+        }
+        // splitting a balanced list halves it
+        Spliterator<Integer> spliterator = generator.apply(1 << 12).spliterator();
+        assertEquals(1 << 11, spliterator.trySplit().estimateSize());
+    }
 }
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2014 Shape Security, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.shapesecurity.functional.data;
+
+import com.shapesecurity.functional.TestBase;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ConcatListZipperTest extends TestBase {
+    @Test
+    public void testEdits() {
+        int N = 1000;
+        ConcatListZipper<Integer> zipper = ConcatList.fromList(range(N).toArrayList()).zipper();
+        List<Integer> expected = new ArrayList<>(range(N).toArrayList());
+        int position = 0;
+        // walk right editing, then back left inserting, across many chunks
+        while (!zipper.isAtEnd()) {
+            int x = zipper.focus().fromJust();
+            if (x % 5 == 0) {
+                zipper = zipper.delete().fromJust();
+                expected.remove(position);
+                continue;
+            }
+            if (x % 7 == 0) {
+                zipper = zipper.replace(-x).fromJust();
+                expected.set(position, -x);
+            }
+            zipper = zipper.moveRight().fromJust();
+            position++;
+            assertEquals(position, zipper.position());
+        }
+        assertEquals(expected, zipper.toList().toArrayList());
+        while (!zipper.isAtStart()) {
+            zipper = zipper.moveLeft().fromJust();
+            position--;
+            if (position % 4 == 0) {
+                zipper = zipper.insert(-1);
+                expected.add(position, -1);
+            }
+            assertEquals(Maybe.of(expected.get(position)), zipper.focus());
+        }
+        assertEquals(0, zipper.position());
+        assertEquals(Maybe.empty(), zipper.moveLeft());
+        ConcatList<Integer> list = zipper.toConcatList();
+        assertEquals(expected, list.toList().toArrayList());
+        assertTrue(list.height <= 1.44 * Math.log(list.length + 2) / Math.log(2));
+
+        ConcatListZipper<Integer> middle = list.zipper();
+        for (int i = 0; i < 500; i++) {
+            middle = middle.moveRight().fromJust();
+        }
+        assertEquals(Maybe.of(expected.get(500)), middle.focus());
+        assertEquals(list, middle.insert(7).delete().fromJust().toConcatList());
+        assertEquals(ImmutableList.of(1), ConcatList.<Integer>empty().zipper().insert(1).toList());
+    }
+}
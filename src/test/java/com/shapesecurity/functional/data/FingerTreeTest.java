@@ -0,0 +1,150 @@
+/*
+ * Copyright 2014 Shape Security, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.shapesecurity.functional.data;
+
+import com.shapesecurity.functional.Pair;
+import com.shapesecurity.functional.TestBase;
+import org.junit.Test;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class FingerTreeTest extends TestBase {
+    private static final Monoid<Integer> MAX = new Monoid<Integer>() {
+        @Nonnull
+        @Override
+        public Integer identity() {
+            return Integer.MIN_VALUE;
+        }
+
+        @Nonnull
+        @Override
+        public Integer append(Integer a, Integer b) {
+            return Math.max(a, b);
+        }
+    };
+
+    private static FingerTree<Integer, Integer> indexed(ImmutableList<Integer> list) {
+        return FingerTree.from(Monoid.INTEGER_ADDITIVE, x -> 1, list);
+    }
+
+    @Test
+    public void testConsSnoc() {
+        FingerTree<Integer, Integer> tree = FingerTree.empty(Monoid.INTEGER_ADDITIVE, x -> 1);
+        assertTrue(tree.isEmpty());
+        assertEquals(0, (int) tree.measure());
+        for (int i = 0; i < 1000; i++) {
+            tree = tree.snoc(i).cons(-i - 1);
+        }
+        assertEquals(2000, (int) tree.measure());
+        assertEquals(range(-1000, 1000), tree.toList());
+        assertEquals(Maybe.of(-1000), tree.maybeHead());
+        assertEquals(Maybe.of(999), tree.maybeLast());
+
+        ImmutableList<Integer> fromFront = ImmutableList.empty();
+        FingerTree<Integer, Integer> rest = tree;
+        while (!rest.isEmpty()) {
+            fromFront = fromFront.cons(rest.maybeHead().fromJust());
+            rest = rest.maybeTail().fromJust();
+        }
+        assertEquals(tree.toList().reverse(), fromFront);
+
+        ImmutableList<Integer> fromBack = ImmutableList.empty();
+        rest = tree;
+        while (!rest.isEmpty()) {
+            fromBack = fromBack.cons(rest.maybeLast().fromJust());
+            rest = rest.maybeInit().fromJust();
+        }
+        assertEquals(tree.toList(), fromBack);
+    }
+
+    @Test
+    public void testSplit() {
+        for (int n = 0; n < 100; n++) {
+            FingerTree<Integer, Integer> tree = indexed(range(n));
+            for (int i = 0; i <= n; i++) {
+                int index = i;
+                Pair<FingerTree<Integer, Integer>, FingerTree<Integer, Integer>> split = tree.split(m -> m > index);
+                assertEquals(range(i), split.left.toList());
+                assertEquals(range(i, n), split.right.toList());
+                assertEquals(i, (int) split.left.measure());
+                assertEquals(i < n ? Maybe.of(i) : Maybe.<Integer>empty(), tree.lookup(m -> m > index));
+            }
+        }
+    }
+
+    @Test
+    public void testAppend() {
+        for (int n = 0; n < 40; n++) {
+            for (int m = 0; m < 40; m++) {
+                FingerTree<Integer, Integer> tree = indexed(range(n)).append(indexed(range(n, n + m)));
+                assertEquals(range(n + m), tree.toList());
+                assertEquals(n + m, (int) tree.measure());
+            }
+        }
+    }
+
+    @Test
+    public void testPriorityQueue() {
+        ImmutableList<Integer> priorities = range(200).map(x -> x * 37 % 101);
+        FingerTree<Integer, Integer> queue = FingerTree.from(MAX, x -> x, priorities);
+        ImmutableList<Integer> popped = ImmutableList.empty();
+        while (!queue.isEmpty()) {
+            int max = queue.measure();
+            Pair<FingerTree<Integer, Integer>, FingerTree<Integer, Integer>> split = queue.split(m -> m >= max);
+            popped = popped.cons(split.right.maybeHead().fromJust());
+            queue = split.left.append(split.right.maybeTail().fromJust());
+        }
+        assertEquals(priorities.sort(Integer::compare), popped);
+    }
+
+    @Test
+    public void testIterator() {
+        for (int n = 0; n < 300; n += n < 20 ? 1 : 37) {
+            FingerTree<Integer, Integer> tree = indexed(range(n / 2)).append(indexed(range(n / 2, n)));
+            ArrayList<Integer> visited = new ArrayList<>();
+            for (Integer x : tree) {
+                visited.add(x);
+            }
+            assertEquals(range(n), ImmutableList.from(visited));
+            Iterator<Integer> iterator = tree.iterator();
+            for (int i = 0; i < n; i++) {
+                iterator.next();
+            }
+            assertFalse(iterator.hasNext());
+            try {
+                iterator.next();
+                fail();
+            } catch (NoSuchElementException ignored) {
+            }
+        }
+        // trees as elements, including empty ones, are not confused with the tree's own parts
+        FingerTree<Integer, Integer> empty = indexed(ImmutableList.empty());
+        ImmutableList<FingerTree<Integer, Integer>> elements = range(50).map(i -> i % 3 == 0 ? empty : indexed(range(i)));
+        FingerTree<FingerTree<Integer, Integer>, Integer> trees = FingerTree.from(Monoid.INTEGER_ADDITIVE, x -> 1, elements);
+        ArrayList<FingerTree<Integer, Integer>> visited = new ArrayList<>();
+        trees.iterator().forEachRemaining(visited::add);
+        assertEquals(elements, ImmutableList.from(visited));
+    }
+}
@@ -522,4 +522,50 @@ public class HashTableTest extends TestBase {
             previous = pair.left;
         }
     }
+
+    @Test
+    public void byPredicateTest() {
+        HashTable<Integer, Integer> t = HashTable.emptyUsingEquality();
+        for (int i = 0; i < 1000; ++i) {
+            t = t.put(i, i * 2);
+        }
+        assertEquals(500, t.countByPredicate(p -> p.left % 2 == 0));
+        assertEquals(999 * 1000, t.sumInt(p -> p.right));
+        assertEquals(1000, t.foldLeftInt((acc, p) -> acc + 1, 0));
+        assertTrue(t.existsByPredicate(p -> p.right == 1998));
+        assertFalse(t.existsByPredicate(p -> p.right == 1999));
+        assertEquals(Maybe.of(Pair.of(7, 14)), t.findByPredicate(p -> p.left == 7));
+        assertEquals(t.filter(p -> p.left < 10).length, t.filterByPredicate(p -> p.left < 10).length);
+    }
+
+    @Test
+    public void chunksTest() {
+        HashTable<Integer, Integer> t = HashTable.emptyUsingEquality();
+        for (int i = 0; i < 1000; ++i) {
+            t = t.put(i, i);
+        }
+        List<Object> seen = new ArrayList<>();
+        t.forEachChunk(64, chunk -> seen.addAll(Arrays.asList(chunk)));
+        assertEquals(t.entries().toArrayList(), seen);
+        assertEquals(16, t.grouped(64).length);
+        assertEquals(t.entries(), t.grouped(64).flatMap(x -> x));
+    }
+
+    @Test
+    public void iteratorTest() {
+        HashTable<Integer, Integer> t = HashTable.emptyUsingEquality();
+        for (int i = 0; i < 10000; ++i) {
+            t = t.put(i * 7919, i);
+        }
+        // colliding hashes end up in the same leaf at the bottom of the trie
+        HashTable<String, Integer> collisions = HashTable.emptyUsingEquality();
+        collisions = collisions.put("Aa", 1).put("BB", 2).put("C#", 3);
+        for (HashTable<?, ?> table : Arrays.asList(t, collisions, HashTable.emptyUsingEquality())) {
+            List<Object> iterated = new ArrayList<>();
+            for (Pair<?, ?> p : table) {
+                iterated.add(p);
+            }
+            assertEquals(table.entries().toArrayList(), iterated);
+        }
+    }
 }
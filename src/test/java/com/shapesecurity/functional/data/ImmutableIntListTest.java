@@ -0,0 +1,106 @@
+/*
+ * Copyright 2014 Shape Security, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.shapesecurity.functional.data;
+
+import com.shapesecurity.functional.TestBase;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ImmutableIntListTest extends TestBase {
+    @Test
+    public void testCons() {
+        ImmutableIntList list = ImmutableIntList.empty();
+        assertTrue(list.isEmpty());
+        for (int i = 999; i >= 0; i--) {
+            list = list.cons(i);
+        }
+        assertEquals(1000, list.length);
+        assertEquals(range(1000), list.toList());
+        assertEquals(Maybe.of(0), list.maybeHead());
+        assertEquals(Maybe.of(1), list.maybeTail().flatMap(ImmutableIntList::maybeHead));
+        assertEquals(Maybe.of(500), list.index(500));
+        assertEquals(Maybe.empty(), list.index(1000));
+        assertEquals(-1, ImmutableIntList.empty().headOr(-1));
+    }
+
+    @Test
+    public void testSharedChunk() {
+        // both lists cons onto the same tail; the second must not overwrite the first
+        ImmutableIntList tail = ImmutableIntList.empty().cons(3).cons(2);
+        ImmutableIntList a = tail.cons(1);
+        ImmutableIntList b = tail.cons(100);
+        assertArrayEquals(new int[]{ 1, 2, 3 }, a.toArray());
+        assertArrayEquals(new int[]{ 100, 2, 3 }, b.toArray());
+        assertArrayEquals(new int[]{ 0, 1, 2, 3 }, a.cons(0).toArray());
+        assertArrayEquals(new int[]{ 2, 3 }, tail.toArray());
+        assertArrayEquals(new int[]{ 5, 2, 3 }, ImmutableIntList.of(2, 3).cons(5).toArray());
+    }
+
+    @Test
+    public void testFanOut() {
+        // many branches off a full cons chunk and off a packed list stay independent
+        ImmutableIntList built = ImmutableIntList.empty();
+        for (int i = 3; i >= 0; i--) {
+            built = built.cons(i);
+        }
+        for (ImmutableIntList tail : new ImmutableIntList[]{ built, ImmutableIntList.of(0, 1, 2, 3) }) {
+            ImmutableIntList[] branches = new ImmutableIntList[10];
+            for (int i = 0; i < branches.length; i++) {
+                branches[i] = tail.cons(-i).cons(-100 - i);
+            }
+            for (int i = 0; i < branches.length; i++) {
+                assertArrayEquals(new int[]{ -100 - i, -i, 0, 1, 2, 3 }, branches[i].toArray());
+            }
+        }
+    }
+
+    @Test
+    public void testOperations() {
+        ImmutableIntList list = ImmutableIntList.of(1, 2, 3, 4, 5);
+        assertEquals(15, list.sum());
+        assertEquals(15, list.foldLeft((acc, x) -> acc + x, 0));
+        assertEquals(3, list.foldRight((x, acc) -> x - acc, 0));
+        assertEquals(ImmutableIntList.of(2, 4, 6, 8, 10), list.map(x -> x * 2));
+        assertEquals(ImmutableIntList.of(2, 4), list.filter(x -> x % 2 == 0));
+        assertEquals(ImmutableIntList.of(5, 4, 3, 2, 1), list.reverse());
+        assertEquals(2, list.count(x -> x > 3));
+        assertTrue(list.exists(x -> x == 5));
+        assertFalse(list.exists(x -> x == 6));
+        assertTrue(list.every(x -> x > 0));
+        assertEquals(list.cons(0), ImmutableIntList.of(0, 1, 2, 3, 4, 5));
+        assertEquals(list.cons(0).hashCode(), ImmutableIntList.of(0, 1, 2, 3, 4, 5).hashCode());
+        assertNotEquals(list, list.cons(0));
+    }
+
+    @Test
+    public void testLongList() {
+        ImmutableLongList list = ImmutableLongList.empty();
+        for (long i = 0; i < 1000; i++) {
+            list = list.cons(i * 1000000000L);
+        }
+        assertEquals(1000, list.length);
+        assertEquals(999L * 1000 / 2 * 1000000000L, list.sum());
+        assertEquals(ImmutableLongList.of(3000000000L, 1000000000L), list.filter(x -> x < 4000000000L && x % 2000000000L != 0));
+        assertEquals(Maybe.of(999000000000L), list.maybeHead());
+        assertEquals(ImmutableLongList.of(1, 2), ImmutableLongList.of(0, 1).map(x -> x + 1));
+    }
+}
@@ -17,7 +17,11 @@
 package com.shapesecurity.functional.data;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 import java.util.LinkedList;
@@ -29,7 +33,10 @@ import com.shapesecurity.functional.TestBase;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import javax.annotation.Nonnull;
 import org.junit.Test;
@@ -280,6 +287,39 @@ public class ImmutableListTest extends TestBase {
         assertEquals(list, list);
     }
 
+    @Test
+    public void testHashCode() {
+        testWithSpecialLists(this::testHashCode);
+    }
+
+    private void testHashCode(ImmutableList<Integer> list) {
+        ImmutableList<Integer> copy = ImmutableList.from(list.toArrayList());
+        // hash a suffix first so that the cached hash codes of shared tails are reused
+        list.drop(list.length / 2).hashCode();
+        assertEquals(copy.hashCode(), list.hashCode());
+        assertEquals(list.hashCode(), list.hashCode());
+    }
+
+    @Test
+    public void testZeroHashCodeIsCached() {
+        int[] hashed = {0};
+        Object element = new Object() {
+            @Override
+            public int hashCode() {
+                hashed[0]++;
+                // makes the list below hash to 0
+                return 503788301;
+            }
+        };
+        ImmutableList<Object> zero = ImmutableList.of(element, 0);
+        assertEquals(0, zero.hashCode());
+        assertEquals(0, zero.hashCode());
+        assertEquals(1, hashed[0]);
+        // the cached hash code of the shared tail is reused
+        assertEquals(ImmutableList.of(7, 503788301, 0).hashCode(), zero.cons(7).hashCode());
+        assertEquals(1, hashed[0]);
+    }
+
     @Test
     public void testSpan() {
         testSpan(ImmutableList.empty(), 0, 0);
@@ -449,9 +489,155 @@ public class ImmutableListTest extends TestBase {
         assertEquals(mutableList, list.stream().sorted((int1, int2) -> int2 - int1).collect(Collectors.toList()));
     }
 
+    @Test
+    public void testParallelStream() {
+        testWithSpecialLists(this::testParallelStream);
+    }
+
+    private void testParallelStream(ImmutableList<Integer> list) {
+        assertEquals(list.toArrayList(), list.stream().parallel().collect(Collectors.toList()));
+        assertEquals((long) list.foldLeft((acc, x) -> acc + x, 0L), list.stream().parallel().mapToLong(x -> x).sum());
+        assertEquals(list.length, list.stream().parallel().filter(x -> true).count());
+        Spliterator<Integer> spliterator = list.spliterator();
+        assertTrue(spliterator.hasCharacteristics(Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.ORDERED | Spliterator.IMMUTABLE));
+        Spliterator<Integer> prefix = spliterator.trySplit();
+        if (list.length < 2) {
+            assertNull(prefix);
+        } else {
+            assertEquals(list.length, prefix.estimateSize() + spliterator.estimateSize());
+            prefix.tryAdvance(x -> assertEquals(list.maybeHead().fromJust(), x));
+            spliterator.tryAdvance(x -> assertEquals(list.index(list.length / 2).fromJust(), x));
+        }
+    }
+
     @Test
     public void testCollector() {
         ImmutableList<Integer> list = ImmutableList.of(1, 2, 3, 4, 5);
         assertEquals(list, StreamSupport.stream(list.spliterator(), false).map(x -> x + 1).map(x -> x - 1).collect(ImmutableList.collector()));
     }
+
+    @Test
+    public void testByPredicate() {
+        testWithSpecialLists(this::testByPredicate);
+    }
+
+    private void testByPredicate(ImmutableList<Integer> list) {
+        assertEquals(list.filter(x -> x % 3 == 0), list.filterByPredicate(x -> x % 3 == 0));
+        assertEquals(list.count(x -> x % 3 == 0), list.countByPredicate(x -> x % 3 == 0));
+        assertEquals(list.exists(x -> x > 5), list.existsByPredicate(x -> x > 5));
+        assertEquals(list.every(x -> x > 5), list.everyByPredicate(x -> x > 5));
+        assertEquals(list.find(x -> x > 5), list.findByPredicate(x -> x > 5));
+        assertEquals(list.findIndex(x -> x > 5), list.findIndexByPredicate(x -> x > 5));
+        assertEquals((int) list.foldLeft((acc, x) -> acc * 31 + x, 0), list.foldLeftInt((acc, x) -> acc * 31 + x, 0));
+        assertEquals((int) list.foldLeft((acc, x) -> acc + x, 0), list.sumInt(x -> x));
+    }
+
+    @Test
+    public void testSort() {
+        testWithSpecialLists(this::testSort);
+        ImmutableList<Integer> sorted = range(100);
+        assertSame(sorted, sorted.sort(Comparator.naturalOrder()));
+        assertSame(sorted, sorted.parallelSort(Comparator.naturalOrder()));
+        // stability
+        ImmutableList<Integer> byKey = range(100).sortBy(x -> x % 7);
+        ImmutableList<Integer> expected = ImmutableList.empty();
+        for (int k = 6; k >= 0; k--) {
+            int key = k;
+            expected = range(100).filter(x -> x % 7 == key).append(expected);
+        }
+        assertEquals(expected, byKey);
+    }
+
+    private void testSort(ImmutableList<Integer> list) {
+        ArrayList<Integer> expected = list.toArrayList();
+        expected.sort(Comparator.reverseOrder());
+        assertEquals(ImmutableList.from(expected), list.sort(Comparator.reverseOrder()));
+        assertEquals(ImmutableList.from(expected), list.parallelSort(Comparator.reverseOrder()));
+        assertEquals(ImmutableList.from(expected), list.sortBy(x -> -x));
+    }
+
+    @Test
+    public void testParallelMapFilterFlatMap() {
+        testWithSpecialLists(this::testParallelMapFilterFlatMap);
+        ImmutableList<Integer> list = range(10000);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (int grainSize : new int[]{ 1, 7, 100000 }) {
+                assertEquals(list.map(x -> x * 2), list.parallelMap(x -> x * 2, pool, grainSize));
+                assertEquals(list.filter(x -> x % 3 == 0), list.parallelFilter(x -> x % 3 == 0, pool, grainSize));
+                assertEquals(list.flatMap(x -> range(x % 3)), list.parallelFlatMap(x -> range(x % 3), pool, grainSize));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private void testParallelMapFilterFlatMap(ImmutableList<Integer> list) {
+        assertEquals(list.map(x -> x + 1), list.parallelMap(x -> x + 1));
+        assertEquals(list.filter(x -> x % 2 == 0), list.parallelFilter(x -> x % 2 == 0));
+        assertEquals(list.flatMap(x -> ImmutableList.of(x, x)), list.parallelFlatMap(x -> ImmutableList.of(x, x)));
+    }
+
+    @Test
+    public void testBuilder() {
+        ImmutableList.Builder<Integer> builder = ImmutableList.builder();
+        assertEquals(ImmutableList.empty(), builder.build());
+        for (int i = 0; i < 100000; i++) {
+            builder.add(i);
+        }
+        assertEquals(100000, builder.length());
+        assertEquals(range(100000), builder.build());
+        // building does not consume the builder
+        builder.addAll(ImmutableList.of(-1, -2));
+        assertEquals(range(100000).append(ImmutableList.of(-1, -2)), builder.build());
+        ImmutableList<Integer> tail = range(3);
+        ImmutableList<Integer> built = ImmutableList.<Integer>builder().add(7).buildOnto(tail);
+        assertSame(tail, ((NonEmptyImmutableList<Integer>) built).tail);
+        assertEquals(range(1000), ImmutableList.from((Iterable<Integer>) range(1000).toLinkedList()::iterator));
+        assertEquals(range(100000), range(100000).stream().parallel().collect(ImmutableList.collector()));
+    }
+
+    @Test
+    public void testGroupBy() {
+        ImmutableList<Integer> list = range(1000);
+        MultiHashTable<Integer, Integer> groups = list.groupBy(x -> x % 7);
+        for (int k = 0; k < 7; k++) {
+            int key = k;
+            assertEquals(list.filter(x -> x % 7 == key), groups.get(k));
+        }
+        HashTable<Integer, ImmutableList<Integer>> partitions = groups.toHashTable();
+        assertEquals(7, partitions.length);
+        assertEquals(groups.get(3), partitions.get(3).fromJust());
+        HashTable<Boolean, Integer> counts = list.countBy(x -> x < 100);
+        assertEquals(Maybe.of(100), counts.get(true));
+        assertEquals(Maybe.of(900), counts.get(false));
+        HashTable<Integer, Integer> index = list.indexBy(x -> x / 10);
+        assertEquals(100, index.length);
+        assertEquals(Maybe.of(129), index.get(12));
+        HashTable<String, Integer> byIdentity = ImmutableList.of(1, 2, 3).countBy(HashTable.identityHasher(), x -> "k");
+        assertEquals(Maybe.of(3), byIdentity.get("k"));
+        assertEquals(0, ImmutableList.<Integer>empty().groupBy(x -> x).entries().length);
+    }
+
+    @Test
+    public void testChunks() {
+        ImmutableList<Integer> list = range(10);
+        ArrayList<Object> seen = new ArrayList<>();
+        int[] sizes = { 0, 0 };
+        list.forEachChunk(4, chunk -> {
+            sizes[chunk.length == 4 ? 0 : 1]++;
+            seen.addAll(Arrays.asList(chunk));
+        });
+        assertEquals(2, sizes[0]);
+        assertEquals(1, sizes[1]);
+        assertEquals(list.toArrayList(), seen);
+        ImmutableList.<Integer>empty().forEachChunk(4, chunk -> fail());
+
+        assertEquals(ImmutableList.of(range(0, 4), range(4, 8), range(8, 10)), list.grouped(4));
+        assertEquals(ImmutableList.of(range(0, 3), range(1, 4), range(2, 5)), range(5).sliding(3, 1));
+        assertEquals(ImmutableList.of(range(0, 2), range(2, 4), range(4, 5)), range(5).sliding(2, 2));
+        assertEquals(ImmutableList.of(range(0, 1), range(3, 4)), range(5).sliding(1, 3));
+        assertEquals(ImmutableList.of(range(3)), range(3).sliding(5, 1));
+        assertEquals(ImmutableList.empty(), ImmutableList.empty().grouped(3));
+    }
 }
@@ -242,4 +242,15 @@ public class ImmutableSetTest extends TestBase {
         assertEquals(set2, set4);
         assertEquals(set2, ImmutableList.of("key1", "key2", "key3", "key4", "key5").uniqByEquality());
     }
+
+    @Test
+    public void testGroupBy() {
+        ImmutableSet<Integer> set = ImmutableSet.fromUsingEquality(range(100));
+        HashTable<Integer, ImmutableList<Integer>> partitions = set.groupBy(x -> x % 10).toHashTable();
+        assertEquals(10, partitions.length);
+        assertEquals(ImmutableSet.fromUsingEquality(range(100).filter(x -> x % 10 == 3)), ImmutableSet.fromUsingEquality(partitions.get(3).fromJust()));
+        assertEquals(Maybe.of(10), set.countBy(x -> x % 10).get(9));
+        assertEquals(Maybe.of(42), set.indexBy(x -> x).get(42));
+        assertEquals(10, set.groupBy(x -> x / 10).get(5).length);
+    }
 }
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2014 Shape Security, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.shapesecurity.functional.data;
+
+import com.shapesecurity.functional.TestBase;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ImmutableVectorTest extends TestBase {
+    // sizes around the boundaries of the tail and of each trie level
+    private static final int[] SIZES = { 0, 1, 31, 32, 33, 64, 1024, 1056, 1057, 32 * 32 * 32 + 33, 40000 };
+
+    @Test
+    public void testEmpty() {
+        ImmutableVector<Integer> v = ImmutableVector.empty();
+        assertTrue(v.isEmpty());
+        assertEquals(0, v.length);
+        assertEquals(Maybe.<Integer>empty(), v.index(0));
+        assertEquals(Maybe.<ImmutableVector<Integer>>empty(), v.update(0, 1));
+        assertFalse(v.iterator().hasNext());
+    }
+
+    @Test
+    public void testAppendIndex() {
+        for (int n : SIZES) {
+            ImmutableVector<Integer> v = ImmutableVector.empty();
+            for (int i = 0; i < n; i++) {
+                v = v.append1(i);
+            }
+            assertEquals(n, v.length);
+            for (int i = 0; i < n; i++) {
+                assertEquals(i, (int) v.index(i).fromJust());
+            }
+            assertEquals(Maybe.<Integer>empty(), v.index(n));
+            assertEquals(Maybe.<Integer>empty(), v.index(-1));
+            assertEquals(v, ImmutableVector.from(range(n)));
+        }
+    }
+
+    @Test
+    public void testUpdate() {
+        for (int n : SIZES) {
+            ImmutableVector<Integer> original = ImmutableVector.from(range(n));
+            ImmutableVector<Integer> v = original;
+            for (int i = 0; i < n; i += 7) {
+                v = v.update(i, -i).fromJust();
+            }
+            for (int i = 0; i < n; i++) {
+                assertEquals(i % 7 == 0 ? -i : i, (int) v.index(i).fromJust());
+                assertEquals(i, (int) original.index(i).fromJust());
+            }
+            assertEquals(Maybe.<ImmutableVector<Integer>>empty(), v.update(n, 0));
+        }
+    }
+
+    @Test
+    public void testPersistence() {
+        ImmutableVector<Integer> v = ImmutableVector.from(range(100));
+        ImmutableVector<Integer> a = v.append1(100);
+        ImmutableVector<Integer> b = v.append1(-100);
+        assertEquals(100, v.length);
+        assertEquals(100, (int) a.index(100).fromJust());
+        assertEquals(-100, (int) b.index(100).fromJust());
+    }
+
+    @Test
+    public void testConversions() {
+        for (int n : SIZES) {
+            ImmutableList<Integer> list = range(n);
+            ImmutableVector<Integer> v = ImmutableVector.from(list);
+            assertEquals(list, v.toList());
+            assertEquals(list, v.toConcatList().toList());
+            assertEquals(v, ImmutableVector.from(v.toConcatList()));
+            int[] i = { 0 };
+            for (int x : v) {
+                assertEquals(i[0]++, x);
+            }
+            assertEquals(n, i[0]);
+            i[0] = 0;
+            v.forEach(x -> assertEquals(i[0]++, (int) x));
+            assertEquals(n, i[0]);
+        }
+    }
+
+    @Test
+    public void testFoldMap() {
+        for (int n : SIZES) {
+            ImmutableVector<Integer> v = ImmutableVector.from(range(n));
+            assertEquals(range(n).foldLeft((acc, x) -> acc * 31 + x, 0), v.foldLeft((acc, x) -> acc * 31 + x, 0));
+            assertEquals(range(n).foldRight((x, acc) -> acc * 31 + x, 0), v.foldRight((x, acc) -> acc * 31 + x, 0));
+            assertEquals(range(n).map(x -> x + 1), v.map(x -> x + 1).toList());
+        }
+    }
+
+    @Test
+    public void testEquals() {
+        assertEquals(ImmutableVector.of(1, 2, 3), ImmutableVector.from(ImmutableList.of(1, 2, 3)));
+        assertEquals(ImmutableVector.of(1, 2, 3).hashCode(), ImmutableVector.from(ImmutableList.of(1, 2, 3)).hashCode());
+        assertNotEquals(ImmutableVector.of(1, 2, 3), ImmutableVector.of(1, 2, 4));
+        assertNotEquals(ImmutableVector.of(1, 2, 3), ImmutableVector.of(1, 2));
+    }
+
+    @Test
+    public void testZeroHashCodeIsCached() {
+        int[] hashed = {0};
+        Object element = new Object() {
+            @Override
+            public int hashCode() {
+                hashed[0]++;
+                // makes the vector below hash to 0
+                return -896461738;
+            }
+        };
+        ImmutableVector<Object> zero = ImmutableVector.of(8, element);
+        assertEquals(0, zero.hashCode());
+        assertEquals(0, zero.hashCode());
+        assertEquals(1, hashed[0]);
+    }
+}
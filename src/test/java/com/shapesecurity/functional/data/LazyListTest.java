@@ -0,0 +1,126 @@
+/*
+ * Copyright 2014 Shape Security, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.shapesecurity.functional.data;
+
+import com.shapesecurity.functional.Pair;
+import com.shapesecurity.functional.TestBase;
+import org.junit.Test;
+
+import java.lang.ref.WeakReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LazyListTest extends TestBase {
+    @Test
+    public void testConstruction() {
+        assertTrue(LazyList.empty().isEmpty());
+        assertEquals(range(10), LazyList.from(range(10)).toList());
+        assertEquals(range(10), LazyList.iterate(0, x -> x + 1).take(10).toList());
+        assertEquals(range(10), LazyList.<Integer, Integer>unfold(0, x -> x < 10 ? Maybe.of(Pair.of(x, x + 1)) : Maybe.empty()).toList());
+        assertEquals(ImmutableList.of(1, 2), LazyList.cons(1, () -> LazyList.cons(2, LazyList::empty)).toList());
+        assertEquals(range(10), LazyList.from(range(10)).toConcatList().toList());
+    }
+
+    @Test
+    public void testLaziness() {
+        int[] calls = { 0 };
+        LazyList<Integer> list = LazyList.iterate(0, x -> {
+            calls[0]++;
+            return x + 1;
+        });
+        assertEquals(0, calls[0]);
+        LazyList<Integer> mapped = list.map(x -> x * 2).filter(x -> x % 3 == 0);
+        assertEquals(ImmutableList.of(0, 6, 12), mapped.take(3).toList());
+        assertEquals(6, calls[0]);
+        // tails are memoized
+        assertEquals(ImmutableList.of(0, 6, 12), mapped.take(3).toList());
+        assertEquals(6, calls[0]);
+        assertEquals(Maybe.of(1), list.maybeTail().flatMap(LazyList::maybeHead));
+        assertEquals(6, calls[0]);
+    }
+
+    @Test
+    public void testOperations() {
+        LazyList<Integer> naturals = LazyList.iterate(0, x -> x + 1);
+        assertEquals(range(5), naturals.takeWhile(x -> x < 5).toList());
+        assertEquals(range(5, 10), naturals.drop(5).take(5).toList());
+        assertEquals(ImmutableList.of(Pair.of(0, "a"), Pair.of(1, "b")), naturals.zip(LazyList.from(ImmutableList.of("a", "b"))).toList());
+        assertEquals(Maybe.of(100), naturals.find(x -> x >= 100));
+        assertEquals(45, (int) naturals.take(10).foldLeft((acc, x) -> acc + x, 0));
+        assertEquals(Maybe.empty(), LazyList.empty().maybeHead());
+        assertEquals(Maybe.empty(), LazyList.empty().maybeTail());
+        assertFalse(naturals.take(0).iterator().hasNext());
+        assertTrue(naturals.drop(10).take(0).isEmpty());
+    }
+
+    @Test
+    public void testStackSafety() {
+        int n = 1000000;
+        LazyList<Integer> naturals = LazyList.iterate(0, x -> x + 1);
+        assertEquals(Maybe.of(n), naturals.filter(x -> x >= n).maybeHead());
+        assertEquals(Maybe.of(n), naturals.drop(n).maybeHead());
+        long[] sum = { 0 };
+        naturals.map(x -> x + 1).take(n).forEach(x -> sum[0] += x);
+        assertEquals((long) n * (n + 1) / 2, sum[0]);
+    }
+
+    // Returns a long list without keeping it, so that only the weak reference refers to its first cell.
+    private static LazyList<Integer> tracked(WeakReference<?>[] head) {
+        LazyList<Integer> list = LazyList.iterate(0, x -> x + 1).take(100000);
+        head[0] = new WeakReference<>(list);
+        return list;
+    }
+
+    private static boolean collected(WeakReference<?> ref) {
+        for (int i = 0; i < 10 && ref.get() != null; i++) {
+            System.gc();
+        }
+        return ref.get() == null;
+    }
+
+    @Test
+    public void testConsumedPrefixIsNotRetained() {
+        WeakReference<?>[] head = { null };
+        boolean[] released = { false };
+        assertEquals(Maybe.of(99999), LazyList.find(tracked(head), x -> {
+            if (x == 50000) {
+                released[0] = collected(head[0]);
+            }
+            return x == 99999;
+        }));
+        assertTrue(released[0]);
+
+        released[0] = false;
+        assertEquals(100000, (int) LazyList.foldLeft(tracked(head), (acc, x) -> {
+            if (x == 50000) {
+                released[0] = collected(head[0]);
+            }
+            return acc + 1;
+        }, 0));
+        assertTrue(released[0]);
+
+        released[0] = false;
+        LazyList.forEach(tracked(head), x -> {
+            if (x == 50000) {
+                released[0] = collected(head[0]);
+            }
+        });
+        assertTrue(released[0]);
+    }
+}
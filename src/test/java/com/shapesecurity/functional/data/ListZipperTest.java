@@ -0,0 +1,68 @@
+/*
+ * Copyright 2014 Shape Security, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.shapesecurity.functional.data;
+
+import com.shapesecurity.functional.TestBase;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ListZipperTest extends TestBase {
+    @Test
+    public void testEdits() {
+        ListZipper<Integer> zipper = range(100).zipper();
+        List<Integer> expected = new ArrayList<>(range(100).toArrayList());
+        assertTrue(zipper.isAtStart());
+        assertEquals(Maybe.empty(), zipper.moveLeft());
+        int position = 0;
+        // delete every multiple of 3, double every odd number, and put a 0 before every 10th
+        while (!zipper.isAtEnd()) {
+            int x = zipper.focus().fromJust();
+            if (x % 3 == 0) {
+                zipper = zipper.delete().fromJust();
+                expected.remove(position);
+                continue;
+            }
+            if (x % 2 == 1) {
+                zipper = zipper.replace(x * 2).fromJust();
+                expected.set(position, x * 2);
+            }
+            if (x % 10 == 1) {
+                zipper = zipper.insert(0).moveRight().fromJust();
+                expected.add(position, 0);
+                position++;
+            }
+            zipper = zipper.moveRight().fromJust();
+            position++;
+            assertEquals(position, zipper.position());
+        }
+        assertEquals(Maybe.empty(), zipper.focus());
+        assertEquals(Maybe.empty(), zipper.moveRight());
+        assertEquals(Maybe.empty(), zipper.delete());
+        assertEquals(expected, zipper.toList().toArrayList());
+
+        zipper = zipper.moveLeft().fromJust().moveLeft().fromJust();
+        assertEquals(Maybe.of(expected.get(expected.size() - 2)), zipper.focus());
+        assertFalse(zipper.isAtEnd());
+        assertEquals(ImmutableList.of(1), ImmutableList.<Integer>empty().zipper().insert(1).toList());
+    }
+}
@@ -199,4 +199,13 @@ public class MaybeTest extends TestBase {
             fail("Maybe.empty() should not iterate");
         }
     }
+
+    @Test
+    public void testUnboxed() {
+        assertEquals(3, Maybe.of("abc").maybeInt(-1, String::length));
+        assertEquals(-1, Maybe.<String>empty().maybeInt(-1, String::length));
+        assertTrue(Maybe.of(3).existsByPredicate(x -> x > 2));
+        assertFalse(Maybe.of(3).existsByPredicate(x -> x > 3));
+        assertFalse(Maybe.<Integer>empty().existsByPredicate(x -> true));
+    }
 }
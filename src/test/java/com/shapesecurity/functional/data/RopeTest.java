@@ -0,0 +1,133 @@
+/*
+ * Copyright 2014 Shape Security, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.shapesecurity.functional.data;
+
+import com.shapesecurity.functional.TestBase;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class RopeTest extends TestBase {
+    @Test
+    public void testAppend() {
+        Rope rope = Rope.empty();
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            String fragment = i % 10 == 0 ? "[" + i + "]" + new String(new char[600]).replace('\0', 'x') : "(" + i + ")";
+            rope = i % 3 == 0 ? Rope.of(fragment).append(rope) : rope.append(fragment);
+            if (i % 3 == 0) {
+                expected.insert(0, fragment);
+            } else {
+                expected.append(fragment);
+            }
+        }
+        assertEquals(expected.length(), rope.length());
+        assertEquals(expected.toString(), rope.toString());
+        assertTrue(rope.height < 30);
+        for (int i = 0; i < expected.length(); i += 97) {
+            assertEquals(expected.charAt(i), rope.charAt(i));
+        }
+        assertEquals(expected.toString().hashCode(), rope.hashCode());
+        assertEquals(Rope.of(expected.toString()), rope);
+    }
+
+    @Test
+    public void testEqualsHashCode() {
+        Rope rope = Monoid.ROPE_CONCAT.mconcat(range(300).map(i -> Rope.of(i + ",")));
+        String expected = rope.toString();
+        // the same characters in fragments of other lengths
+        Rope reshaped = Rope.empty();
+        for (int i = 0; i < expected.length(); i += 7) {
+            reshaped = reshaped.append(expected.substring(i, Math.min(expected.length(), i + 7)));
+        }
+        assertEquals(rope, reshaped);
+        assertEquals(reshaped, rope);
+        assertEquals(expected.hashCode(), reshaped.hashCode());
+        for (int start = 0; start < expected.length(); start += 131) {
+            Rope sub = rope.subSequence(start, expected.length());
+            assertEquals(expected.substring(start).hashCode(), sub.hashCode());
+            assertEquals(Rope.of("x").append(sub), Rope.of("x" + expected.substring(start)));
+        }
+        Rope changed = rope.subSequence(0, 500).append("!").append(rope.subSequence(501, expected.length()));
+        assertFalse(rope.equals(changed));
+        assertFalse(changed.equals(rope));
+        assertFalse(rope.equals(rope.append("!")));
+        assertFalse(rope.equals(expected));
+        // a hash code of 0 is cached like any other
+        Rope zero = Rope.of("\0");
+        assertEquals(0, zero.hashCode());
+        assertEquals(0, zero.hashCode());
+        String fragment = new String(new char[600]).replace('\0', 'a');
+        assertEquals(("\0" + fragment).hashCode(), zero.append(fragment).hashCode());
+    }
+
+    @Test
+    public void testSubSequence() {
+        Rope rope = Monoid.ROPE_CONCAT.mconcat(range(300).map(i -> Rope.of(i + ",")));
+        String expected = range(300).foldLeft((acc, i) -> acc + i + ",", "");
+        assertEquals(expected, rope.toString());
+        for (int start = 0; start < expected.length(); start += 37) {
+            for (int end = start; end <= expected.length(); end += 101) {
+                assertEquals(expected.substring(start, end), rope.subSequence(start, end).toString());
+            }
+        }
+        try {
+            rope.charAt(expected.length());
+            fail();
+        } catch (IndexOutOfBoundsException ignored) {
+        }
+        try {
+            rope.subSequence(5, 4);
+            fail();
+        } catch (IndexOutOfBoundsException ignored) {
+        }
+    }
+
+    @Test
+    public void testWriteTo() throws IOException {
+        // a surrogate pair split between two fragments
+        String text = "aé\ud83d";
+        Rope rope = Rope.of(new String(new char[600]).replace('\0', 'y')).append(text).append(Rope.of("\ude00b" + new String(new char[600]).replace('\0', 'z')));
+        String expected = rope.toString();
+        StringWriter writer = new StringWriter();
+        rope.writeTo(writer);
+        assertEquals(expected, writer.toString());
+
+        ByteBuffer buffer = ByteBuffer.allocate(2000);
+        rope.writeTo(buffer, StandardCharsets.UTF_8);
+        buffer.flip();
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        assertTrue(Arrays.equals(expected.getBytes(StandardCharsets.UTF_8), bytes));
+
+        try {
+            rope.writeTo(ByteBuffer.allocate(10), StandardCharsets.UTF_8);
+            fail();
+        } catch (BufferOverflowException ignored) {
+        }
+    }
+}
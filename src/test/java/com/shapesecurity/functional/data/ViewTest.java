@@ -0,0 +1,141 @@
+/*
+ * Copyright 2014 Shape Security, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.shapesecurity.functional.data;
+
+import com.shapesecurity.functional.TestBase;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ViewTest extends TestBase {
+    @Test
+    public void testPipeline() {
+        ImmutableList<Integer> list = range(1000);
+        ImmutableList<Integer> expected = list.map(x -> x * 3).filter(x -> x % 2 == 0).map(x -> x + 1).take(50);
+        assertEquals(expected, list.view().map(x -> x * 3).filter(x -> x % 2 == 0).map(x -> x + 1).take(50).toList());
+        assertEquals(expected, ConcatList.fromList(list.toArrayList()).view().map(x -> x * 3).filter(x -> x % 2 == 0).map(x -> x + 1).take(50).toList());
+        assertEquals(expected, ConcatList.fromList(list.toArrayList()).view().map(x -> x * 3).filter(x -> x % 2 == 0).map(x -> x + 1).take(50).toConcatList().toList());
+        assertEquals(list.drop(10), list.view().drop(10).toList());
+        assertEquals(range(10), list.view().takeWhile(x -> x < 10).toList());
+        assertEquals(list.flatMap(x -> ImmutableList.of(x, x)), list.view().flatMap(x -> ImmutableList.of(x, x)).toList());
+    }
+
+    @Test
+    public void testCollect() {
+        for (int n : new int[]{ 0, 1, 31, 32, 33, 64, 1000 }) {
+            View<Integer> view = range(n).view().map(x -> x + 1);
+            ImmutableList<Integer> expected = range(1, n + 1);
+            assertEquals(expected, view.toList());
+            ConcatList<Integer> collected = view.toConcatList();
+            assertEquals(n, collected.length);
+            assertEquals(expected, collected.toList());
+            assertTrue(collected.height <= 1.44 * Math.log(n / ConcatList.CHUNK_SIZE + 2) / Math.log(2) + 1);
+        }
+    }
+
+    @Test
+    public void testShortCircuit() {
+        ImmutableList<Integer> list = range(1000);
+        int[] calls = { 0 };
+        assertEquals(range(5), list.view().map(x -> {
+            calls[0]++;
+            return x;
+        }).take(5).toList());
+        assertEquals(5, calls[0]);
+
+        calls[0] = 0;
+        assertEquals(Maybe.of(20), list.view().map(x -> {
+            calls[0]++;
+            return x * 2;
+        }).find(x -> x >= 20));
+        assertEquals(11, calls[0]);
+
+        calls[0] = 0;
+        assertEquals(range(3), list.view().take(3).map(x -> {
+            calls[0]++;
+            return x;
+        }).take(10).toList());
+        assertEquals(3, calls[0]);
+    }
+
+    @Test
+    public void testTerminals() {
+        ImmutableList<Integer> list = range(100);
+        assertEquals(list.foldLeft((acc, x) -> acc + x, 0), list.view().foldLeft((acc, x) -> acc + x, 0));
+        assertEquals(50, list.view().filter(x -> x % 2 == 0).count());
+        assertTrue(list.view().exists(x -> x == 99));
+        assertFalse(list.view().exists(x -> x == 100));
+        assertTrue(list.view().every(x -> x < 100));
+        assertFalse(list.view().every(x -> x < 99));
+        assertEquals(Maybe.<Integer>empty(), list.view().find(x -> x < 0));
+        assertEquals(0, ImmutableList.<Integer>empty().view().map(x -> x + 1).count());
+        assertEquals(0, list.view().take(0).count());
+    }
+
+    @Test
+    public void testSet() {
+        ImmutableSet<Integer> set = ImmutableSet.fromUsingEquality(range(100));
+        assertEquals(set.map(x -> x / 2), set.view().map(x -> x / 2).toSet(HashTable.equalityHasher()));
+        assertEquals(set.filter(x -> x % 3 == 0).length(), set.view().filter(x -> x % 3 == 0).count());
+    }
+
+    @Test
+    public void testReusable() {
+        View<Integer> view = range(10).view().map(x -> x + 1).take(3);
+        assertEquals(view.toList(), view.toList());
+        assertEquals(ImmutableList.of(1, 2, 3), view.toList());
+    }
+
+    @Test
+    public void testIndexedViews() {
+        ImmutableList<Integer> list = range(300);
+        ImmutableList<Integer> reversed = list.reverse();
+        for (IndexedView<Integer> view : ImmutableList.of(list.reverseView(), ConcatList.fromList(list.toArrayList()).reverseView())) {
+            assertEquals(300, view.length);
+            assertEquals(reversed, view.toList());
+            assertEquals(Maybe.of(299), view.index(0));
+            assertEquals(Maybe.of(0), view.index(299));
+            assertEquals(Maybe.<Integer>empty(), view.index(300));
+            assertEquals(list, view.reverse().toList());
+            assertEquals(list.foldRight((x, acc) -> acc + "," + x, ""), view.foldLeft((acc, x) -> acc + "," + x, ""));
+            assertEquals(reversed.foldRight((x, acc) -> acc + "," + x, ""), view.foldRight((x, acc) -> acc + "," + x, ""));
+            for (int from = 0; from <= 300; from += 23) {
+                for (int to = from; to <= 300; to += 41) {
+                    IndexedView<Integer> slice = view.slice(from, to).fromJust();
+                    assertEquals(reversed.drop(from).take(to - from), slice.toList());
+                    assertEquals(reversed.drop(from).take(to - from).reverse(), slice.reverse().toList());
+                    assertEquals(reversed.drop(from).take(to - from).filter(x -> x % 2 == 0), slice.filter(x -> x % 2 == 0).toList());
+                    assertEquals(slice.length == 0 ? Maybe.<Integer>empty() : Maybe.of(299 - from), slice.index(0));
+                }
+            }
+            assertEquals(Maybe.<IndexedView<Integer>>empty(), view.slice(10, 5));
+            assertEquals(ImmutableList.of(289, 288), view.slice(5, 20).fromJust().slice(5, 7).fromJust().toList());
+        }
+        assertEquals(range(10, 20), list.sliceView(10, 20).fromJust().toList());
+        assertEquals(range(10, 20), ConcatList.fromList(list.toArrayList()).sliceView(10, 20).fromJust().toConcatList().toList());
+        assertEquals(Maybe.<IndexedView<Integer>>empty(), list.sliceView(0, 301));
+
+        int[] calls = { 0 };
+        assertEquals(ImmutableList.of(299, 298), ConcatList.fromList(list.toArrayList()).reverseView().map(x -> {
+            calls[0]++;
+            return x;
+        }).take(2).toList());
+        assertEquals(2, calls[0]);
+    }
+}